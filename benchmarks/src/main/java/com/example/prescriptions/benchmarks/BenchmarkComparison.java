@@ -0,0 +1,94 @@
+package com.example.prescriptions.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline and exits with status 1 when any
+ * benchmark present in both got slower by more than the given threshold (percent).
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.example.prescriptions.benchmarks.BenchmarkComparison baseline.json current.json 10
+ * </pre>
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        Path baselinePath = Path.of(args[0]);
+        Path currentPath = Path.of(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        if (!Files.exists(baselinePath)) {
+            System.out.printf("No baseline at %s, nothing to compare. Copy %s there to record one.%n",
+                    baselinePath, currentPath);
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Result> baseline = read(objectMapper, baselinePath);
+        Map<String, Result> current = read(objectMapper, currentPath);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW        %-90s %12.3f %s%n", entry.getKey(), after.score(), after.unit());
+                continue;
+            }
+
+            double change = after.slowdownPercentAgainst(before);
+            boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %-90s %12.3f -> %12.3f %s (%+.1f%% slower)%n",
+                    regressed ? "REGRESSED" : "OK", entry.getKey(), before.score(), after.score(), after.unit(), change);
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(ObjectMapper objectMapper, Path path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : objectMapper.readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+
+            JsonNode metric = run.path("primaryMetric");
+            results.put(key.toString(), new Result(run.path("mode").asText(),
+                    metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private record Result(String mode, double score, String unit) {
+
+        double slowdownPercentAgainst(Result baseline) {
+            if (baseline.score() == 0) {
+                return 0;
+            }
+            double change = (score - baseline.score()) / baseline.score() * 100;
+            // Throughput reports operations per time unit, so higher is better.
+            return "thrpt".equals(mode) ? -change : change;
+        }
+    }
+}
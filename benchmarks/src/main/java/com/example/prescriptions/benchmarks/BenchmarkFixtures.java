@@ -0,0 +1,65 @@
+package com.example.prescriptions.benchmarks;
+
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        // Mirrors the Spring Boot defaults the service runs with.
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static List<PrescriptionResponseDto> responses(int size) {
+        LocalDate today = LocalDate.now();
+        List<PrescriptionResponseDto> responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            responses.add(PrescriptionResponseDto.builder()
+                    .id((long) i)
+                    .patientId((long) (i % 1000))
+                    .doctorName("Dr. Aiym")
+                    .medication("Amoxicillin")
+                    .dosage("500mg twice daily")
+                    .issueDate(today.minusDays(i % 60))
+                    .validUntil(today.plusDays(30 - i % 60))
+                    .isExpired(i % 60 > 30)
+                    .build());
+        }
+        return responses;
+    }
+
+    static PrescriptionRequestDto validRequest() {
+        return PrescriptionRequestDto.builder()
+                .patientId(1L)
+                .doctorName("Dr. Aiym")
+                .medication("Amoxicillin")
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30))
+                .build();
+    }
+
+    static PrescriptionRequestDto invalidRequest() {
+        return PrescriptionRequestDto.builder()
+                .doctorName("")
+                .medication("Amoxicillin")
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now().plusDays(1))
+                .validUntil(LocalDate.now().minusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.prescriptions.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.event.PrescriptionCreatedEvent;
+import com.example.prescriptions.event.PrescriptionEventListener;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification events logged per second from several threads. {@code sync-pattern} is the default console-style
+ * layout written synchronously; {@code async-json} is the prod profile's JSON encoder behind an
+ * {@code AsyncAppender}. {@code sevenLineNotification} is the previous seven-call notification for comparison.
+ * The async appender blocks when its queue is full here, so results reflect sustained throughput rather than drops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EventLoggingBenchmark {
+
+    private static final Logger SEVEN_LINE_LOG = LoggerFactory.getLogger(PrescriptionEventListener.class);
+
+    @Param({"sync-pattern", "async-json"})
+    public String appender;
+
+    private LoggerContext context;
+    private Path logFile;
+    private PrescriptionEventListener listener;
+    private PrescriptionCreatedEvent event;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("event-logging-benchmark", ".log");
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        Encoder<ILoggingEvent> encoder = "async-json".equals(appender) ? jsonEncoder() : patternEncoder();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setFile(logFile.toString());
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> root = file;
+        if ("async-json".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC");
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(0);
+            async.setIncludeCallerData(false);
+            async.addAppender(file);
+            async.start();
+            root = async;
+        }
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(Level.INFO);
+        rootLogger.addAppender(root);
+
+        listener = new PrescriptionEventListener();
+        event = new PrescriptionCreatedEvent(this, BenchmarkFixtures.responses(1).get(0));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void structuredNotification() {
+        listener.handlePrescriptionCreated(event);
+    }
+
+    @Benchmark
+    public void sevenLineNotification() {
+        PrescriptionResponseDto prescription = event.getPrescription();
+        SEVEN_LINE_LOG.info("PRESCRIPTION - NOTIFICATION");
+        SEVEN_LINE_LOG.info("Prescription id: {}", prescription.getId());
+        SEVEN_LINE_LOG.info("Patient id: {}", prescription.getPatientId());
+        SEVEN_LINE_LOG.info("Doctor: {}", prescription.getDoctorName());
+        SEVEN_LINE_LOG.info("Medication: {}", prescription.getMedication());
+        SEVEN_LINE_LOG.info("Dosage: {}", prescription.getDosage());
+        SEVEN_LINE_LOG.info("Valid from: {} and valid until: {}", prescription.getIssueDate(),
+                prescription.getValidUntil());
+    }
+
+    private Encoder<ILoggingEvent> patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5level --- [%thread] %-40.40logger{39} : %msg%n");
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.setIncludeCallerData(false);
+        encoder.setIncludeContext(false);
+        encoder.start();
+        return encoder;
+    }
+}
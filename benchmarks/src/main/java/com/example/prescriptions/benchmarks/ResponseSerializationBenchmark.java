@@ -0,0 +1,52 @@
+package com.example.prescriptions.benchmarks;
+
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@code PrescriptionResponseDto} lists of increasing size, written to a
+ * discarding stream so only encoding cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "50", "500", "10000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<PrescriptionResponseDto> responses;
+
+    @Setup
+    public void setUp() {
+        writer = BenchmarkFixtures.objectMapper().writerFor(new TypeReference<List<PrescriptionResponseDto>>() {
+        });
+        responses = BenchmarkFixtures.responses(size);
+    }
+
+    @Benchmark
+    public void serializeList() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), responses);
+    }
+}
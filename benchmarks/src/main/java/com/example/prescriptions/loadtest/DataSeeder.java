@@ -0,0 +1,132 @@
+package com.example.prescriptions.loadtest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seeds patients and prescriptions with plain JDBC batches and describes the seeded key space
+ * so the workload only asks for rows that exist.
+ */
+final class DataSeeder {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ISSUE_DATE_SPAN_DAYS = 365;
+    private static final List<String> DOCTORS = List.of(
+            "Dr. Aiym", "Dr. Sanzhar", "Dr. Dana", "Dr. Arman", "Dr. Madina", "Dr. Timur", "Dr. Aliya", "Dr. Nurlan");
+    // No two of these appear together in interactions.csv, so generated creates are only rejected as duplicate therapy.
+    private static final List<String> MEDICATIONS = List.of(
+            "Amoxicillin", "Paracetamol", "Metformin", "Atorvastatin", "Omeprazole", "Amlodipine", "Azithromycin",
+            "Cetirizine", "Levothyroxine", "Salbutamol", "Montelukast", "Loratadine");
+
+    private DataSeeder() {
+    }
+
+    static Dataset seed(DataSource dataSource, int patients, int prescriptions) throws SQLException {
+        LocalDate firstIssueDate = LocalDate.now().minusDays(ISSUE_DATE_SPAN_DAYS);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long firstPatientId = nextPatientId(connection);
+            insertPatients(connection, patients);
+            long firstPrescriptionId = insertPrescriptions(connection, firstPatientId, patients, prescriptions, firstIssueDate);
+            connection.commit();
+            return new Dataset(firstPatientId, patients, firstPrescriptionId, prescriptions, firstIssueDate);
+        }
+    }
+
+    static Dataset existing(int patients, int prescriptions) {
+        return new Dataset(1, patients, 1, prescriptions, LocalDate.now().minusDays(ISSUE_DATE_SPAN_DAYS));
+    }
+
+    private static long nextPatientId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM patients")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void insertPatients(Connection connection, int patients) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO patients (first_name, last_name) VALUES (?, ?)")) {
+            for (int i = 0; i < patients; i++) {
+                statement.setString(1, "Patient");
+                statement.setString(2, "Load-" + i);
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static long insertPrescriptions(Connection connection, long firstPatientId, int patients,
+                                            int prescriptions, LocalDate firstIssueDate) throws SQLException {
+        long firstId;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM prescriptions")) {
+            resultSet.next();
+            firstId = resultSet.getLong(1);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < prescriptions; i++) {
+                LocalDate issueDate = firstIssueDate.plusDays(random.nextInt(ISSUE_DATE_SPAN_DAYS));
+                statement.setLong(1, firstId + i);
+                statement.setLong(2, firstPatientId + random.nextInt(patients));
+                statement.setString(3, DOCTORS.get(random.nextInt(DOCTORS.size())));
+                statement.setString(4, MEDICATIONS.get(random.nextInt(MEDICATIONS.size())));
+                statement.setString(5, "500mg twice daily");
+                statement.setDate(6, Date.valueOf(issueDate));
+                statement.setDate(7, Date.valueOf(issueDate.plusDays(7 + random.nextInt(90))));
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('prescriptions_seq', (SELECT MAX(id) FROM prescriptions))");
+            statement.execute("ANALYZE patients");
+            statement.execute("ANALYZE prescriptions");
+        }
+        return firstId;
+    }
+
+    record Dataset(long firstPatientId, int patients, long firstPrescriptionId, int prescriptions,
+                   LocalDate firstIssueDate) {
+
+        long randomPatientId(ThreadLocalRandom random) {
+            return firstPatientId + random.nextInt(patients);
+        }
+
+        long randomPrescriptionId(ThreadLocalRandom random) {
+            return firstPrescriptionId + random.nextInt(prescriptions);
+        }
+
+        LocalDate randomIssueDate(ThreadLocalRandom random) {
+            return firstIssueDate.plusDays(random.nextInt(ISSUE_DATE_SPAN_DAYS));
+        }
+
+        String randomDoctor(ThreadLocalRandom random) {
+            return DOCTORS.get(random.nextInt(DOCTORS.size()));
+        }
+
+        String randomMedication(ThreadLocalRandom random) {
+            return MEDICATIONS.get(random.nextInt(MEDICATIONS.size()));
+        }
+    }
+}
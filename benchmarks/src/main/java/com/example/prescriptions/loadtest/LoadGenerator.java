@@ -0,0 +1,120 @@
+package com.example.prescriptions.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are scheduled at a fixed rate regardless of how quickly
+ * earlier ones complete, and each latency is measured from its scheduled start rather than from
+ * when a client thread picked it up, so a stalled server shows up in the percentiles instead of
+ * silently lowering the request rate (coordinated omission).
+ */
+final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final String baseUrl;
+    private final DataSeeder.Dataset dataset;
+    private final int rate;
+    private final Operation[] schedule;
+    private final HttpClient client;
+    private final ExecutorService workers;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder inFlight = new LongAdder();
+
+    LoadGenerator(String baseUrl, DataSeeder.Dataset dataset, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.rate = options.rate;
+        this.schedule = buildSchedule(options.mix);
+        this.workers = Executors.newFixedThreadPool(options.concurrency);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : options.mix.keySet()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    LoadReport run(Duration duration) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            long scheduledAt = start + sequence * intervalNanos;
+            if (scheduledAt >= end) {
+                break;
+            }
+            long delay = scheduledAt - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = schedule[(int) (sequence % schedule.length)];
+            inFlight.increment();
+            workers.execute(() -> execute(operation, scheduledAt));
+        }
+        while (inFlight.sum() > 0) {
+            Thread.sleep(10);
+        }
+        return new LoadReport(duration, latencies, errors);
+    }
+
+    void reset() {
+        latencies.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void execute(Operation operation, long scheduledAt) {
+        try {
+            HttpResponse<Void> response = client.send(
+                    operation.request(baseUrl, dataset, ThreadLocalRandom.current()),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                errors.get(operation).increment();
+            }
+        } catch (Exception ex) {
+            errors.get(operation).increment();
+        } finally {
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+            latencies.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            inFlight.decrement();
+        }
+    }
+
+    private static Operation[] buildSchedule(Map<Operation, Integer> mix) {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix must have at least one positive weight");
+        }
+        Collections.shuffle(schedule, new Random(42));
+        return schedule.toArray(new Operation[0]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.prescriptions.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency percentiles and throughput for one measured run.
+ */
+final class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private final Duration duration;
+    private final Map<Operation, Histogram> latencies;
+    private final Map<Operation, LongAdder> errors;
+
+    LoadReport(Duration duration, Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors) {
+        this.duration = duration;
+        this.latencies = latencies;
+        this.errors = errors;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long totalCount = 0;
+        for (Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            totalCount += histogram.getTotalCount();
+            out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().optionName(),
+                    histogram.getTotalCount(),
+                    errors.get(entry.getKey()).sum(),
+                    histogram.getTotalCount() / (double) duration.toSeconds(),
+                    histogram.getValueAtPercentile(50.0) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.0) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+        }
+        out.printf("total      %10d %8s %10.1f%n", totalCount, "", totalCount / (double) duration.toSeconds());
+    }
+
+    void printDistributions(PrintStream out) {
+        latencies.forEach((operation, histogram) -> {
+            out.println("# " + operation.optionName());
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        });
+    }
+}
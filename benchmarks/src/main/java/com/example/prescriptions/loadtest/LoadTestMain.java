@@ -0,0 +1,119 @@
+package com.example.prescriptions.loadtest;
+
+import com.example.prescriptions.PrescriptionServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the service against an embedded Postgres (or targets a running instance), seeds data and
+ * drives a mixed workload at a fixed rate, then prints latency percentiles and throughput.
+ *
+ * <pre>
+ * mvn -f benchmarks/pom.xml compile exec:java \
+ *     -Dexec.mainClass=com.example.prescriptions.loadtest.LoadTestMain \
+ *     -Dexec.args="--patients=1000 --prescriptions=100000 --rate=500 --duration=60"
+ * </pre>
+ *
+ * Options: {@code --patients}, {@code --prescriptions}, {@code --rate} (requests per second),
+ * {@code --warmup} and {@code --duration} (seconds), {@code --concurrency} (client threads),
+ * {@code --mix} (for example {@code create=10,getById=60,patient=20,dateRange=10}),
+ * {@code --base-url} to target an already running instance, {@code --jdbc-url}/{@code --db-user}/
+ * {@code --db-password} to seed that instance's database, {@code --app-args} for extra
+ * application arguments, and {@code --output} to write the full percentile distributions to a file.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            String baseUrl = options.baseUrl;
+            DataSeeder.Dataset dataset;
+            if (baseUrl == null) {
+                postgres = EmbeddedPostgres.start();
+                DataSource dataSource = postgres.getPostgresDatabase();
+                Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+                dataset = seed(dataSource, options);
+                application = startApplication(postgres.getJdbcUrl("postgres", "postgres"), options.appArgs);
+                baseUrl = baseUrl(application);
+            } else if (options.jdbcUrl != null) {
+                PGSimpleDataSource dataSource = new PGSimpleDataSource();
+                dataSource.setUrl(options.jdbcUrl);
+                dataSource.setUser(options.dbUser);
+                dataSource.setPassword(options.dbPassword);
+                dataset = seed(dataSource, options);
+            } else {
+                dataset = DataSeeder.existing(options.patients, options.prescriptions);
+            }
+
+            LoadReport report = measure(baseUrl, dataset, options);
+            report.print(System.out);
+            if (options.output != null) {
+                try (PrintStream stream = new PrintStream(new FileOutputStream(options.output))) {
+                    report.printDistributions(stream);
+                }
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    static LoadReport measure(String baseUrl, DataSeeder.Dataset dataset, LoadTestOptions options)
+            throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(baseUrl, dataset, options);
+        try {
+            System.out.printf("Warming up for %ds at %d req/s%n", options.warmup.toSeconds(), options.rate);
+            generator.run(options.warmup);
+            generator.reset();
+            System.out.printf("Measuring for %ds at %d req/s%n", options.duration.toSeconds(), options.rate);
+            return generator.run(options.duration);
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    static DataSeeder.Dataset seed(DataSource dataSource, LoadTestOptions options) throws Exception {
+        long started = System.nanoTime();
+        DataSeeder.Dataset dataset = DataSeeder.seed(dataSource, options.patients, options.prescriptions);
+        System.out.printf("Seeded %d patients and %d prescriptions in %d ms%n", options.patients,
+                options.prescriptions, (System.nanoTime() - started) / 1_000_000);
+        return dataset;
+    }
+
+    static ConfigurableApplicationContext startApplication(String jdbcUrl, String[] appArgs) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.example.prescriptions=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        arguments.addAll(List.of(appArgs));
+        return new SpringApplicationBuilder(PrescriptionServiceApplication.class)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext application) {
+        return "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.prescriptions.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options for {@link LoadTestMain}, given as {@code --name=value}.
+ */
+final class LoadTestOptions {
+
+    final int patients;
+    final int prescriptions;
+    final int rate;
+    final Duration warmup;
+    final Duration duration;
+    final int concurrency;
+    final Map<Operation, Integer> mix;
+    final String baseUrl;
+    final String jdbcUrl;
+    final String dbUser;
+    final String dbPassword;
+    final String[] appArgs;
+    final String output;
+    final String reactiveJar;
+
+    private LoadTestOptions(Map<String, String> values) {
+        patients = Integer.parseInt(values.getOrDefault("patients", "1000"));
+        prescriptions = Integer.parseInt(values.getOrDefault("prescriptions", "100000"));
+        rate = Integer.parseInt(values.getOrDefault("rate", "200"));
+        warmup = Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "15")));
+        duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60")));
+        concurrency = Integer.parseInt(values.getOrDefault("concurrency", "64"));
+        mix = parseMix(values.getOrDefault("mix", "create=10,getById=60,patient=20,dateRange=10"));
+        baseUrl = values.get("base-url");
+        jdbcUrl = values.get("jdbc-url");
+        dbUser = values.getOrDefault("db-user", "postgres");
+        dbPassword = values.getOrDefault("db-password", "");
+        appArgs = values.getOrDefault("app-args", "").isBlank()
+                ? new String[0]
+                : values.get("app-args").trim().split("\\s+");
+        output = values.get("output");
+        reactiveJar = values.getOrDefault("reactive-jar", "reactive/target/prescription-service-reactive-1.0.0.jar");
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            mix.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.prescriptions.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The request types driven against {@code PrescriptionController}.
+ */
+enum Operation {
+    CREATE("create") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            LocalDate issueDate = LocalDate.now().minusDays(random.nextInt(30));
+            String body = String.format("{\"patientId\":%d,\"doctorName\":\"%s\",\"medication\":\"%s\","
+                            + "\"dosage\":\"500mg twice daily\",\"issueDate\":\"%s\",\"validUntil\":\"%s\"}",
+                    dataset.randomPatientId(random), dataset.randomDoctor(random), dataset.randomMedication(random),
+                    issueDate, LocalDate.now().plusDays(1 + random.nextInt(90)));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/prescriptions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    },
+    BATCH_CREATE("batchCreate") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < BATCH_CREATE_ITEMS; i++) {
+                LocalDate issueDate = LocalDate.now().minusDays(random.nextInt(30));
+                body.append(String.format("{\"patientId\":%d,\"doctorName\":\"%s\",\"medication\":\"%s\","
+                                + "\"dosage\":\"500mg twice daily\",\"issueDate\":\"%s\",\"validUntil\":\"%s\"}\n",
+                        dataset.randomPatientId(random), dataset.randomDoctor(random), dataset.randomMedication(random),
+                        issueDate, LocalDate.now().plusDays(1 + random.nextInt(90))));
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/prescriptions/batch"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+        }
+    },
+    GET_BY_ID("getById") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            return get(baseUrl + "/prescriptions/" + dataset.randomPrescriptionId(random));
+        }
+    },
+    PATIENT("patient") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            return get(baseUrl + "/prescriptions/patient/" + dataset.randomPatientId(random));
+        }
+    },
+    DATE_RANGE("dateRange") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            LocalDate startDate = dataset.randomIssueDate(random);
+            return get(baseUrl + "/prescriptions/filter/date-range?startDate=" + startDate
+                    + "&endDate=" + startDate.plusDays(7));
+        }
+    },
+    SEARCH("search") {
+        @Override
+        HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random) {
+            String medication = dataset.randomMedication(random).toLowerCase();
+            int start = random.nextInt(medication.length() - 4);
+            char[] term = medication.substring(start, start + 5).toCharArray();
+            if (random.nextBoolean()) {
+                term[random.nextInt(term.length)] = 'x';
+            }
+            return get(baseUrl + "/prescriptions/search?q=" + new String(term));
+        }
+    };
+
+    /**
+     * Prescriptions per {@link #BATCH_CREATE} request, so rows per second is its throughput times this.
+     */
+    static final int BATCH_CREATE_ITEMS = 500;
+
+    private final String optionName;
+
+    Operation(String optionName) {
+        this.optionName = optionName;
+    }
+
+    abstract HttpRequest request(String baseUrl, DataSeeder.Dataset dataset, ThreadLocalRandom random);
+
+    String optionName() {
+        return optionName;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.optionName.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.prescriptions.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same workload against the servlet service and the reactive module in turn, on one seeded database, and
+ * prints both reports. The reactive jar runs as a separate process; build it first with
+ * {@code mvn -f reactive/pom.xml package}. Accepts the {@link LoadTestMain} options except {@code --base-url}, plus
+ * {@code --reactive-jar}. The reactive module serves create, get-by-id, by-patient and date-range only.
+ *
+ * <pre>
+ * mvn -f benchmarks/pom.xml compile exec:java \
+ *     -Dexec.mainClass=com.example.prescriptions.loadtest.ServletReactiveComparison \
+ *     -Dexec.args="--rate=2000 --concurrency=512 --duration=60"
+ * </pre>
+ */
+public final class ServletReactiveComparison {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private ServletReactiveComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Path reactiveJar = Path.of(options.reactiveJar);
+        if (!Files.isRegularFile(reactiveJar)) {
+            throw new IllegalArgumentException(reactiveJar + " not found, run mvn -f reactive/pom.xml package first");
+        }
+        Map<String, LoadReport> reports = new LinkedHashMap<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            DataSource dataSource = postgres.getPostgresDatabase();
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            DataSeeder.Dataset dataset = LoadTestMain.seed(dataSource, options);
+
+            try (ConfigurableApplicationContext application =
+                         LoadTestMain.startApplication(postgres.getJdbcUrl("postgres", "postgres"), options.appArgs)) {
+                reports.put("servlet + JPA", LoadTestMain.measure(LoadTestMain.baseUrl(application), dataset, options));
+            }
+            reports.put("WebFlux + R2DBC", runReactive(reactiveJar, postgres.getPort(), dataset, options));
+        }
+        reports.forEach((mode, report) -> {
+            System.out.println();
+            System.out.println("== " + mode);
+            report.print(System.out);
+        });
+    }
+
+    private static LoadReport runReactive(Path jar, int databasePort, DataSeeder.Dataset dataset,
+                                          LoadTestOptions options) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", jar.toString(),
+                "--server.port=" + port,
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + databasePort + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=",
+                "--logging.level.com.example.prescriptions=WARN"));
+        command.addAll(List.of(options.appArgs));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        try {
+            String baseUrl = "http://localhost:" + port;
+            awaitHealthy(baseUrl, process);
+            return LoadTestMain.measure(baseUrl, dataset, options);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static void awaitHealthy(String baseUrl, Process process) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).GET().build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Reactive application exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Reactive application did not become healthy within " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.prescriptions.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same workload against the platform-thread and the {@code virtual-threads} profile in turn, on one
+ * seeded database, and prints both reports. Accepts the {@link LoadTestMain} options except {@code --base-url}.
+ * Virtual threads need Maven to run on a JDK 21; on older runtimes both runs use platform threads.
+ *
+ * <pre>
+ * mvn -f benchmarks/pom.xml compile exec:java \
+ *     -Dexec.mainClass=com.example.prescriptions.loadtest.ThreadingModeComparison \
+ *     -Dexec.args="--rate=2000 --concurrency=512 --duration=60"
+ * </pre>
+ */
+public final class ThreadingModeComparison {
+
+    private ThreadingModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (Runtime.version().feature() < 21) {
+            System.out.println("WARNING: running on Java " + Runtime.version().feature()
+                    + ", the virtual-threads profile will fall back to platform threads");
+        }
+        Map<String, LoadReport> reports = new LinkedHashMap<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            DataSource dataSource = postgres.getPostgresDatabase();
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            DataSeeder.Dataset dataset = LoadTestMain.seed(dataSource, options);
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+
+            reports.put("platform threads", run(jdbcUrl, dataset, options, options.appArgs));
+            List<String> virtualArgs = new ArrayList<>(List.of(options.appArgs));
+            virtualArgs.add("--spring.profiles.active=virtual-threads");
+            reports.put("virtual threads", run(jdbcUrl, dataset, options, virtualArgs.toArray(new String[0])));
+        }
+        reports.forEach((mode, report) -> {
+            System.out.println();
+            System.out.println("== " + mode);
+            report.print(System.out);
+        });
+    }
+
+    private static LoadReport run(String jdbcUrl, DataSeeder.Dataset dataset, LoadTestOptions options,
+                                  String[] appArgs) throws InterruptedException {
+        try (ConfigurableApplicationContext application = LoadTestMain.startApplication(jdbcUrl, appArgs)) {
+            return LoadTestMain.measure(LoadTestMain.baseUrl(application), dataset, options);
+        }
+    }
+}
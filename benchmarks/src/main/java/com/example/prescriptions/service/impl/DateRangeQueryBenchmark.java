@@ -0,0 +1,147 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.PrescriptionServiceApplication;
+import com.example.prescriptions.dto.PrescriptionSnapshot;
+import com.example.prescriptions.entity.Prescription;
+import com.example.prescriptions.repository.PrescriptionRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@code findByIssueDateBetween} against an embedded Postgres seeded with {@code prescriptions} rows, once
+ * loading managed {@link Prescription} entities and once through the {@link PrescriptionSnapshot} projection the
+ * repository uses, and maps both to response DTOs. The range covers the last {@code days} days of a year of issue
+ * dates. Run with {@code -prof gc} to compare bytes allocated per call:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar DateRangeQueryBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DateRangeQueryBenchmark {
+
+    private static final String ENTITY_QUERY =
+            "SELECT p FROM Prescription p WHERE p.issueDate >= :startDate AND p.issueDate <= :endDate";
+
+    @Param({"200000"})
+    public int prescriptions;
+
+    @Param({"30", "365"})
+    public int days;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext application;
+    private PrescriptionRepository prescriptionRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        application = new SpringApplicationBuilder(PrescriptionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--prescriptions.outbox.relay.enabled=false",
+                        "--prescriptions.archive.enabled=false",
+                        "--logging.level.root=WARN");
+        seed();
+
+        prescriptionRepository = application.getBean(PrescriptionRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                application.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(application.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        endDate = LocalDate.now();
+        startDate = endDate.minusDays(days - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void loadEntities(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Prescription prescription : entityManager.createQuery(ENTITY_QUERY, Prescription.class)
+                    .setParameter("startDate", startDate)
+                    .setParameter("endDate", endDate)
+                    .getResultList()) {
+                blackhole.consume(PrescriptionServiceImpl.toResponseDto(prescription));
+            }
+        });
+    }
+
+    @Benchmark
+    public void loadSnapshots(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PrescriptionSnapshot snapshot : prescriptionRepository.findByIssueDateBetween(startDate, endDate)) {
+                blackhole.consume(PrescriptionServiceImpl.toResponseDto(snapshot));
+            }
+        });
+    }
+
+    private void seed() throws SQLException {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO patients (first_name, last_name) " +
+                            "SELECT 'Patient', 'Bench-' || g FROM generate_series(1, 1000) g")) {
+                statement.execute();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                            "SELECT m.next_id + g, (SELECT MIN(id) FROM patients) + g % 1000, 'Dr. Aiym', 'Amoxicillin', " +
+                            "'500mg twice daily', current_date - g % 365, current_date - g % 365 + 30 " +
+                            "FROM generate_series(1, ?) g, (SELECT COALESCE(MAX(id), 0) AS next_id FROM prescriptions) m")) {
+                statement.setInt(1, prescriptions);
+                statement.execute();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT setval('prescriptions_seq', (SELECT MAX(id) FROM prescriptions))")) {
+                statement.execute();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("ANALYZE prescriptions")) {
+                statement.execute();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.exception.ValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code validateDates} on the accepted path and on the rejected path, which builds
+ * a formatted message and throws.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateValidationBenchmark {
+
+    private final LocalDate issueDate = LocalDate.of(2026, 1, 1);
+    private final LocalDate validUntil = LocalDate.of(2026, 1, 31);
+
+    @Benchmark
+    public void validDates() {
+        PrescriptionServiceImpl.validateDates(issueDate, validUntil);
+    }
+
+    @Benchmark
+    public ValidationException invalidDates() {
+        try {
+            PrescriptionServiceImpl.validateDates(validUntil, issueDate);
+            return null;
+        } catch (ValidationException ex) {
+            return ex;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.prescriptions.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the clinical check on create and update: a new medication against {@code activeMedications} of the
+ * patient's active prescriptions, with a matrix of {@code medications} names and {@code pairs} interactions.
+ * The database read of the active medications is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InteractionCheckBenchmark {
+
+    @Param({"5000"})
+    public int medications;
+
+    @Param({"100000"})
+    public int pairs;
+
+    @Param({"5", "30"})
+    public int activeMedications;
+
+    private InteractionMatrix matrix;
+    private String medication;
+    private List<String> active;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < pairs; i++) {
+            csv.append(name(random.nextInt(medications))).append(',')
+                    .append(name(random.nextInt(medications))).append('\n');
+        }
+        matrix = new InteractionMatrix(new ByteArrayResource(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                new SimpleMeterRegistry());
+        medication = name(random.nextInt(medications));
+        active = new ArrayList<>();
+        for (int i = 0; i < activeMedications; i++) {
+            active.add(name(random.nextInt(medications)));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> check() {
+        return matrix.conflicts(medication, active);
+    }
+
+    private static String name(int id) {
+        return "Medication " + id;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.prescriptions.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulated patient reads per second when patient ids follow a Zipfian distribution, as with many terminals serving
+ * the same morning patients. No database is involved: each query parks for {@code queryMicros} while holding one of
+ * {@code connections} permits, which stands in for the Hikari pool, so results show the upper bound of what
+ * coalescing saves rather than production throughput. {@code direct} runs every read; {@code coalesced} goes through {@link SingleFlight}.
+ * The share of reads that joined an in-flight query is printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class SingleFlightBenchmark {
+
+    private static final int PATIENTS = 10_000;
+
+    @Param({"direct", "coalesced"})
+    public String mode;
+
+    @Param({"0.8", "0.99", "1.2"})
+    public double skew;
+
+    @Param({"500"})
+    public long queryMicros;
+
+    @Param({"10"})
+    public int connections;
+
+    private double[] cumulative;
+    private Semaphore pool;
+    private SingleFlight<Long, Long> flight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cumulative = zipfCumulative(PATIENTS, skew);
+        pool = new Semaphore(connections);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() {
+        flight = new SingleFlight<>();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportCoalescing() {
+        if ("coalesced".equals(mode)) {
+            long executed = flight.executedCount();
+            long shared = flight.sharedCount();
+            System.out.printf("%ncoalesced %.1f%% of %d reads into %d queries%n",
+                    100.0 * shared / Math.max(1, executed + shared), executed + shared, executed);
+        }
+    }
+
+    @Benchmark
+    public Long readPatient() {
+        long patientId = nextPatientId();
+        if ("coalesced".equals(mode)) {
+            return flight.execute(patientId, () -> query(patientId));
+        }
+        return query(patientId);
+    }
+
+    private Long query(long patientId) {
+        pool.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(queryMicros));
+            return patientId;
+        } finally {
+            pool.release();
+        }
+    }
+
+    private long nextPatientId() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return (index >= 0 ? index : -index - 1) + 1L;
+    }
+
+    private static double[] zipfCumulative(int keys, double skew) {
+        double[] cumulative = new double[keys];
+        double total = 0;
+        for (int rank = 1; rank <= keys; rank++) {
+            total += 1 / Math.pow(rank, skew);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < keys; i++) {
+            cumulative[i] /= total;
+        }
+        cumulative[keys - 1] = 1.0;
+        return cumulative;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.prescriptions.reactive;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+@Table("prescriptions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PrescriptionRow {
+    @Id
+    private Long id;
+    private Long patientId;
+    private String doctorName;
+    private String medication;
+    private String dosage;
+    private LocalDate issueDate;
+    private LocalDate validUntil;
+    @Version
+    private Long version;
+}
@@ -0,0 +1,21 @@
+package com.example.prescriptions.reactive;
+
+import com.example.prescriptions.service.impl.InteractionMatrix;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class ReactiveConfiguration {
+
+    @Bean
+    public InteractionMatrix interactionMatrix(
+            @Value("${prescriptions.interactions.location:classpath:interactions.csv}") Resource location,
+            MeterRegistry meterRegistry){
+        return new InteractionMatrix(location, meterRegistry);
+    }
+}
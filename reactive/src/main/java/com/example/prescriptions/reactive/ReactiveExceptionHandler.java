@@ -0,0 +1,71 @@
+package com.example.prescriptions.reactive;
+
+import com.example.prescriptions.exception.ClinicalConflictException;
+import com.example.prescriptions.exception.ErrorResponse;
+import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.exception.ValidationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Same status codes and {@link ErrorResponse} bodies as {@code GlobalExceptionHandler}.
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFoundException(NotFoundException ex) {
+        return error(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), null);
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<ErrorResponse> handleValidationException(ValidationException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Validation Error", ex.getMessage(), null);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleBindException(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach(error ->
+                errors.put(((FieldError) error).getField(), error.getDefaultMessage()));
+        return error(HttpStatus.BAD_REQUEST, "Validation Error", "Invalid input parameters", errors);
+    }
+
+    @ExceptionHandler(ClinicalConflictException.class)
+    public ResponseEntity<ErrorResponse> handleClinicalConflict(ClinicalConflictException ex) {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, "Clinical Conflict", ex.getMessage(), ex.getConflicts());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex) {
+        return error(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", ex.getMessage(), null);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return error(HttpStatus.CONFLICT, "Conflict", "The prescription was modified concurrently, reload it and retry",
+                null);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, String error, String message,
+                                                       Map<String, String> details) {
+        ErrorResponse body = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(error)
+                .message(message)
+                .details(details)
+                .build();
+        return ResponseEntity.status(status).body(body);
+    }
+}
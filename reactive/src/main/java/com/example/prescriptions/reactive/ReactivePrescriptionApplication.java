@@ -0,0 +1,17 @@
+package com.example.prescriptions.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Non-blocking variant of the prescription API. It serves the core {@code /prescriptions} endpoints with WebFlux and
+ * R2DBC against the schema that the servlet service's Flyway migrations maintain. It only writes outbox rows; the
+ * servlet service's {@code OutboxRelay} publishes them, so one instance of it must run against the same database.
+ */
+@SpringBootApplication
+public class ReactivePrescriptionApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactivePrescriptionApplication.class, args);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.prescriptions.reactive;
+
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.service.VersionTags;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The core {@code /prescriptions} contract of {@code PrescriptionController}. List endpoints return the same cursor
+ * pages for {@code application/json}; with {@code Accept: application/x-ndjson} they stream every match as it is read.
+ */
+@RestController
+@RequestMapping("/prescriptions")
+@RequiredArgsConstructor
+public class ReactivePrescriptionController {
+
+    private final ReactivePrescriptionService prescriptionService;
+
+    @Value("${prescriptions.http.max-age:60s}")
+    private Duration maxAge;
+
+    @PostMapping
+    public Mono<ResponseEntity<PrescriptionResponseDto>> createPrescription(
+            @Valid @RequestBody PrescriptionRequestDto requestDto) {
+        return prescriptionService.create(requestDto)
+                .map(responseDto -> ResponseEntity.status(HttpStatus.CREATED).body(responseDto));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<PrescriptionResponseDto>> getPrescriptionById(@PathVariable Long id) {
+        return prescriptionService.getById(id)
+                .map(responseDto -> ResponseEntity.ok()
+                        .eTag(eTag(responseDto))
+                        .cacheControl(cacheControl(responseDto))
+                        .body(responseDto));
+    }
+
+    @GetMapping(value = "/patient/{patientId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByPatient(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return prescriptionService.getByPatientId(patientId, cursor, size);
+    }
+
+    @GetMapping(value = "/patient/{patientId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PrescriptionResponseDto> streamPrescriptionsByPatient(@PathVariable Long patientId) {
+        return prescriptionService.streamByPatientId(patientId);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<PrescriptionResponseDto>> updatePrescription(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody PrescriptionRequestDto requestDto) {
+        return Mono.defer(() -> prescriptionService.update(id, requestDto, parseIfMatch(ifMatch)))
+                .map(responseDto -> ResponseEntity.ok().eTag(eTag(responseDto)).body(responseDto));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deletePrescription(@PathVariable Long id) {
+        return prescriptionService.delete(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping(value = "/filter/doctor", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByDoctor(
+            @RequestParam String doctorName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return prescriptionService.getByDoctorName(doctorName, cursor, size);
+    }
+
+    @GetMapping(value = "/filter/doctor", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PrescriptionResponseDto> streamPrescriptionsByDoctor(@RequestParam String doctorName) {
+        return prescriptionService.streamByDoctorName(doctorName);
+    }
+
+    @GetMapping(value = "/filter/date-range", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return prescriptionService.getByDateRange(startDate, endDate, cursor, size);
+    }
+
+    @GetMapping(value = "/filter/date-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PrescriptionResponseDto> streamPrescriptionsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return prescriptionService.streamByDateRange(startDate, endDate);
+    }
+
+    private static String eTag(PrescriptionResponseDto prescription) {
+        return "\"" + VersionTags.of(prescription) + "\"";
+    }
+
+    private CacheControl cacheControl(PrescriptionResponseDto prescription) {
+        Duration maxAge = this.maxAge;
+        if (!Boolean.TRUE.equals(prescription.getIsExpired())) {
+            Duration untilExpiry = Duration.between(LocalDateTime.now(),
+                    prescription.getValidUntil().plusDays(1).atStartOfDay());
+            if (untilExpiry.compareTo(maxAge) < 0) {
+                maxAge = untilExpiry.isNegative() ? Duration.ZERO : untilExpiry;
+            }
+        }
+        return CacheControl.maxAge(maxAge).cachePrivate();
+    }
+
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        try {
+            return VersionTags.parseVersion(ifMatch);
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("If-Match " + ifMatch + " does not match any prescription version");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.prescriptions.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface ReactivePrescriptionRepository extends R2dbcRepository<PrescriptionRow, Long> {
+
+    /**
+     * Reserves the block of 50 ids ending at the returned value; {@link PooledIdAllocator} hands them out one by one,
+     * as Hibernate does for the servlet service.
+     */
+    @Query("SELECT nextval('prescriptions_seq')")
+    Mono<Long> nextId();
+
+    @Query("SELECT EXISTS (SELECT 1 FROM patients WHERE id = :patientId)")
+    Mono<Boolean> patientExists(Long patientId);
+
+    @Query("SELECT * FROM prescriptions WHERE patient_id = :patientId ORDER BY id")
+    Flux<PrescriptionRow> streamByPatientId(Long patientId);
+
+    @Query("SELECT * FROM prescriptions WHERE patient_id = :patientId AND id > :afterId ORDER BY id LIMIT :limit")
+    Flux<PrescriptionRow> findPageByPatientId(Long patientId, long afterId, int limit);
+
+    @Query("SELECT * FROM prescriptions WHERE doctor_name = :doctorName ORDER BY id")
+    Flux<PrescriptionRow> streamByDoctorName(String doctorName);
+
+    @Query("SELECT * FROM prescriptions WHERE doctor_name = :doctorName AND id > :afterId ORDER BY id LIMIT :limit")
+    Flux<PrescriptionRow> findPageByDoctorName(String doctorName, long afterId, int limit);
+
+    @Query("SELECT * FROM prescriptions WHERE issue_date >= :startDate AND issue_date <= :endDate " +
+            "ORDER BY issue_date, id")
+    Flux<PrescriptionRow> streamByIssueDateBetween(LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT * FROM prescriptions WHERE issue_date >= :startDate AND issue_date <= :endDate " +
+            "AND (issue_date > :afterDate OR (issue_date = :afterDate AND id > :afterId)) " +
+            "ORDER BY issue_date, id LIMIT :limit")
+    Flux<PrescriptionRow> findPageByIssueDateBetween(LocalDate startDate, LocalDate endDate,
+                                                     LocalDate afterDate, long afterId, int limit);
+
+    /**
+     * The same transaction-scoped advisory lock as {@code PatientRepository.lockForPrescriptionWrites}, so clinical
+     * checks for one patient are serialized across both variants.
+     */
+    @Query("SELECT 1 FROM pg_advisory_xact_lock(:patientId)")
+    Mono<Integer> lockForPrescriptionWrites(Long patientId);
+
+    @Query("SELECT medication FROM prescriptions " +
+            "WHERE patient_id = :patientId AND valid_until >= :today AND id <> :excludedId")
+    Flux<String> findActiveMedications(Long patientId, LocalDate today, long excludedId);
+
+    @Modifying
+    @Query("DELETE FROM prescriptions WHERE id = :id")
+    Mono<Integer> deleteDirectlyById(Long id);
+
+    @Modifying
+    @Query("INSERT INTO outbox_events (id, aggregate_id, event_type, payload, created_at) " +
+            "VALUES (nextval('outbox_events_seq'), :aggregateId, :eventType, :payload, now())")
+    Mono<Integer> insertOutboxEvent(Long aggregateId, String eventType, String payload);
+}
@@ -0,0 +1,242 @@
+package com.example.prescriptions.reactive;
+
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.event.OutboxEventRecorder;
+import com.example.prescriptions.exception.ClinicalConflictException;
+import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.exception.ValidationException;
+import com.example.prescriptions.service.impl.InteractionMatrix;
+import com.example.prescriptions.service.impl.PageCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reactive counterpart of {@code PrescriptionServiceImpl} for the core endpoints. Validation, {@code isExpired},
+ * the clinical check, optimistic locking and outbox events behave the same way; nothing here blocks.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePrescriptionService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final ReactivePrescriptionRepository prescriptionRepository;
+    private final PooledIdAllocator idAllocator;
+    private final InteractionMatrix interactionMatrix;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public Mono<PrescriptionResponseDto> create(PrescriptionRequestDto dto){
+        return validate(dto, null)
+                .then(idAllocator.nextId())
+                .flatMap(id -> {
+                    PrescriptionRow row = toRow(dto);
+                    row.setId(id);
+                    return prescriptionRepository.save(row);
+                })
+                .map(ReactivePrescriptionService::toResponseDto)
+                .flatMap(prescription -> recordEvent(prescription.getId(), OutboxEventRecorder.PRESCRIPTION_CREATED,
+                        prescription).thenReturn(prescription));
+    }
+
+    public Mono<PrescriptionResponseDto> getById(Long id){
+        return prescriptionRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Prescription", id)))
+                .map(ReactivePrescriptionService::toResponseDto);
+    }
+
+    public Flux<PrescriptionResponseDto> streamByPatientId(Long patientId){
+        return prescriptionRepository.streamByPatientId(patientId).map(ReactivePrescriptionService::toResponseDto);
+    }
+
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getByPatientId(Long patientId, String cursor, Integer size){
+        return Mono.fromCallable(() -> resolvePageSize(size))
+                .flatMap(pageSize -> {
+                    long afterId = cursor == null ? 0L : PageCursor.decode(cursor).getId();
+                    return toPage(prescriptionRepository.findPageByPatientId(patientId, afterId, pageSize + 1),
+                            pageSize, row -> PageCursor.encode(row.getId()));
+                });
+    }
+
+    public Flux<PrescriptionResponseDto> streamByDoctorName(String doctorName){
+        return prescriptionRepository.streamByDoctorName(doctorName).map(ReactivePrescriptionService::toResponseDto);
+    }
+
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getByDoctorName(String doctorName, String cursor, Integer size){
+        return Mono.fromCallable(() -> resolvePageSize(size))
+                .flatMap(pageSize -> {
+                    long afterId = cursor == null ? 0L : PageCursor.decode(cursor).getId();
+                    return toPage(prescriptionRepository.findPageByDoctorName(doctorName, afterId, pageSize + 1),
+                            pageSize, row -> PageCursor.encode(row.getId()));
+                });
+    }
+
+    public Flux<PrescriptionResponseDto> streamByDateRange(LocalDate startDate, LocalDate endDate){
+        return validateRange(startDate, endDate)
+                .thenMany(prescriptionRepository.streamByIssueDateBetween(startDate, endDate))
+                .map(ReactivePrescriptionService::toResponseDto);
+    }
+
+    public Mono<CursorPageResponseDto<PrescriptionResponseDto>> getByDateRange(LocalDate startDate, LocalDate endDate,
+                                                                               String cursor, Integer size){
+        return validateRange(startDate, endDate)
+                .then(Mono.fromCallable(() -> resolvePageSize(size)))
+                .flatMap(pageSize -> {
+                    LocalDate afterDate = startDate;
+                    long afterId = 0L;
+                    if (cursor != null){
+                        PageCursor pageCursor = PageCursor.decodeWithDate(cursor);
+                        afterDate = pageCursor.getIssueDate();
+                        afterId = pageCursor.getId();
+                    }
+                    return toPage(prescriptionRepository.findPageByIssueDateBetween(startDate, endDate, afterDate,
+                                    afterId, pageSize + 1),
+                            pageSize, row -> PageCursor.encode(row.getIssueDate(), row.getId()));
+                });
+    }
+
+    @Transactional
+    public Mono<PrescriptionResponseDto> update(Long id, PrescriptionRequestDto dto, Long expectedVersion){
+        return validate(dto, id)
+                .then(prescriptionRepository.findById(id))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Prescription", id)))
+                .flatMap(row -> {
+                    if (expectedVersion != null && !expectedVersion.equals(row.getVersion())){
+                        return Mono.error(new PreconditionFailedException(
+                                String.format("Prescription with id %d has changed since version %d", id, expectedVersion)));
+                    }
+                    row.setPatientId(dto.getPatientId());
+                    row.setDoctorName(dto.getDoctorName());
+                    row.setMedication(dto.getMedication());
+                    row.setDosage(dto.getDosage());
+                    row.setIssueDate(dto.getIssueDate());
+                    row.setValidUntil(dto.getValidUntil());
+                    return prescriptionRepository.save(row);
+                })
+                .map(ReactivePrescriptionService::toResponseDto)
+                .flatMap(prescription -> recordEvent(id, OutboxEventRecorder.PRESCRIPTION_UPDATED, prescription)
+                        .thenReturn(prescription));
+    }
+
+    @Transactional
+    public Mono<Void> delete(Long id){
+        return prescriptionRepository.deleteDirectlyById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new NotFoundException("Prescription", id))
+                        : recordEvent(id, OutboxEventRecorder.PRESCRIPTION_DELETED, Map.of("id", id)))
+                .then();
+    }
+
+    private Mono<Void> validate(PrescriptionRequestDto dto, Long prescriptionId){
+        return prescriptionRepository.patientExists(dto.getPatientId())
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : Mono.error(new NotFoundException("Patient", dto.getPatientId())))
+                .then(Mono.fromRunnable(() -> validateDates(dto.getIssueDate(), dto.getValidUntil())))
+                .then(prescriptionRepository.lockForPrescriptionWrites(dto.getPatientId()))
+                .then(checkClinicalConflicts(dto, prescriptionId));
+    }
+
+    private Mono<Void> checkClinicalConflicts(PrescriptionRequestDto dto, Long prescriptionId){
+        LocalDate today = LocalDate.now();
+        if (dto.getValidUntil().isBefore(today)){
+            return Mono.empty();
+        }
+        return prescriptionRepository.findActiveMedications(dto.getPatientId(), today,
+                        prescriptionId == null ? 0L : prescriptionId)
+                .collectList()
+                .flatMap(activeMedications -> {
+                    Map<String, String> conflicts = interactionMatrix.conflicts(dto.getMedication(), activeMedications);
+                    return conflicts.isEmpty()
+                            ? Mono.<Void>empty()
+                            : Mono.error(new ClinicalConflictException(dto.getMedication(), conflicts));
+                });
+    }
+
+    private Mono<Void> recordEvent(Long aggregateId, String eventType, Object payload){
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(payload))
+                .onErrorMap(JsonProcessingException.class, ex ->
+                        new IllegalStateException("Could not serialize " + eventType + " event for " + aggregateId, ex))
+                .flatMap(json -> prescriptionRepository.insertOutboxEvent(aggregateId, eventType, json))
+                .then();
+    }
+
+    private static Mono<Void> validateRange(LocalDate startDate, LocalDate endDate){
+        return startDate.isAfter(endDate)
+                ? Mono.error(new ValidationException("Start date must be before or equal to end date"))
+                : Mono.empty();
+    }
+
+    static void validateDates(LocalDate issueDate, LocalDate validUntil){
+        if (validUntil.isBefore(issueDate)){
+            throw new ValidationException(String.format("Valid until date %s cannot be before issue date %s", validUntil, issueDate)
+            );
+        }
+    }
+
+    private static int resolvePageSize(Integer size){
+        if (size == null){
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1){
+            throw new ValidationException("Page size must be at least 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private static Mono<CursorPageResponseDto<PrescriptionResponseDto>> toPage(Flux<PrescriptionRow> rows, int pageSize,
+                                                                               Function<PrescriptionRow, String> cursorOf){
+        return rows.collectList().map(page -> {
+            boolean hasMore = page.size() > pageSize;
+            List<PrescriptionRow> items = hasMore ? page.subList(0, pageSize) : page;
+            return CursorPageResponseDto.<PrescriptionResponseDto>builder()
+                    .items(items.stream().map(ReactivePrescriptionService::toResponseDto).toList())
+                    .size(items.size())
+                    .hasMore(hasMore)
+                    .nextCursor(hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null)
+                    .build();
+        });
+    }
+
+    private static PrescriptionRow toRow(PrescriptionRequestDto dto){
+        return PrescriptionRow.builder()
+                .patientId(dto.getPatientId())
+                .doctorName(dto.getDoctorName())
+                .medication(dto.getMedication())
+                .dosage(dto.getDosage())
+                .issueDate(dto.getIssueDate())
+                .validUntil(dto.getValidUntil())
+                .build();
+    }
+
+    static PrescriptionResponseDto toResponseDto(PrescriptionRow prescription){
+        boolean isExpired = LocalDate.now().isAfter(prescription.getValidUntil());
+
+        return PrescriptionResponseDto.builder()
+                .id(prescription.getId())
+                .patientId(prescription.getPatientId())
+                .doctorName(prescription.getDoctorName())
+                .medication(prescription.getMedication())
+                .dosage(prescription.getDosage())
+                .issueDate(prescription.getIssueDate())
+                .validUntil(prescription.getValidUntil())
+                .isExpired(isExpired)
+                .version(prescription.getVersion())
+                .build();
+    }
+}
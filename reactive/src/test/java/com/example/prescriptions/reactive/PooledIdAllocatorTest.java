@@ -0,0 +1,49 @@
+package com.example.prescriptions.reactive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pooled Id Allocator Tests")
+class PooledIdAllocatorTest {
+
+    @Mock
+    private ReactivePrescriptionRepository prescriptionRepository;
+
+    @Test
+    @DisplayName("Should hand out every id of a reserved block before taking the next sequence value")
+    void nextId_UsesWholeBlock() {
+        when(prescriptionRepository.nextId()).thenReturn(Mono.just(100L), Mono.just(250L));
+        PooledIdAllocator allocator = new PooledIdAllocator(prescriptionRepository);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PooledIdAllocator.ALLOCATION_SIZE + 1; i++) {
+            ids.add(allocator.nextId().block());
+        }
+
+        List<Long> expected = new ArrayList<>(LongStream.rangeClosed(51, 100).boxed().toList());
+        expected.add(201L);
+        assertEquals(expected, ids);
+        verify(prescriptionRepository, times(2)).nextId();
+    }
+
+    @Test
+    @DisplayName("Should not hand out ids below 1 from the first block of a fresh sequence")
+    void nextId_StartsAtOne() {
+        when(prescriptionRepository.nextId()).thenReturn(Mono.just(1L));
+        PooledIdAllocator allocator = new PooledIdAllocator(prescriptionRepository);
+
+        assertEquals(1L, allocator.nextId().block());
+    }
+}
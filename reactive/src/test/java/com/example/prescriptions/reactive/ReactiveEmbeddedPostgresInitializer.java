@@ -0,0 +1,48 @@
+package com.example.prescriptions.reactive;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Points {@code spring.r2dbc.*} at an embedded Postgres that is started once per JVM and migrated with the servlet
+ * service's Flyway scripts, the same schema the reactive variant expects in production.
+ */
+public class ReactiveEmbeddedPostgresInitializer
+        implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static EmbeddedPostgres postgres;
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // The JVM is exiting anyway.
+                }
+            }));
+        }
+        return postgres;
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        TestPropertyValues.of(
+                "spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres().getPort() + "/postgres",
+                "spring.r2dbc.username=postgres",
+                "spring.r2dbc.password="
+        ).applyTo(context);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.prescriptions.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reactive endpoints against embedded Postgres and checks that they answer with the same status codes and
+ * error bodies as {@code GlobalExceptionHandler} in the servlet service.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "prescriptions.http.max-age=30d"
+})
+@ContextConfiguration(initializers = ReactiveEmbeddedPostgresInitializer.class)
+@DisplayName("Reactive Prescription Controller Tests")
+class ReactivePrescriptionControllerTest {
+    private static final Duration MAX_AGE = Duration.ofDays(30);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private long patientId;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        patientId = queryForLong("INSERT INTO patients (first_name, last_name) VALUES ('Reactive', 'Test') RETURNING id");
+    }
+
+    @Test
+    @DisplayName("Should answer 404 for an unknown prescription or patient")
+    void notFound() {
+        webTestClient.get().uri("/prescriptions/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.error").isEqualTo("Not Found");
+
+        webTestClient.post().uri("/prescriptions")
+                .bodyValue(request(Long.MAX_VALUE, "Amoxicillin"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Not Found");
+    }
+
+    @Test
+    @DisplayName("Should answer 400 with field details for an invalid body and for an inverted date range")
+    void badRequest() {
+        webTestClient.post().uri("/prescriptions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("patientId", patientId))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation Error")
+                .jsonPath("$.details.medication").exists()
+                .jsonPath("$.details.validUntil").exists();
+
+        webTestClient.get()
+                .uri("/prescriptions/filter/date-range?startDate=2026-02-01&endDate=2026-01-01")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Start date must be before or equal to end date");
+    }
+
+    @Test
+    @DisplayName("Should answer 412 for a stale If-Match and 304 for a current If-None-Match")
+    void conditionalRequests() {
+        long id = create("Amoxicillin");
+        String eTag = eTag(id);
+
+        webTestClient.put().uri("/prescriptions/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(request(patientId, "Cetirizine"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.put().uri("/prescriptions/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(request(patientId, "Paracetamol"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Precondition Failed");
+
+        webTestClient.get().uri("/prescriptions/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag(id))
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("Should send the same expiry-aware Cache-Control as the servlet service")
+    void cacheControl() throws SQLException {
+        long expiringTomorrow = create("Amoxicillin", LocalDate.now().plusDays(1));
+        long expired = queryForLong("INSERT INTO prescriptions " +
+                "(id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                "VALUES (nextval('prescriptions_seq'), " + patientId + ", 'Dr. Aiym', 'Cetirizine', '10mg', " +
+                "current_date - 30, current_date - 1) RETURNING id");
+
+        long untilExpiry = maxAgeOf(expiringTomorrow);
+        assertTrue(untilExpiry > 0 && untilExpiry <= Duration.ofDays(2).toSeconds());
+        assertEquals(MAX_AGE.toSeconds(), maxAgeOf(expired));
+    }
+
+    @Test
+    @DisplayName("Should answer 409 when the row changes between the read and the versioned update")
+    void concurrentModification() throws Exception {
+        long id = create("Amoxicillin");
+
+        try (Connection connection = ReactiveEmbeddedPostgresInitializer.postgres().getPostgresDatabase().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE prescriptions SET version = version + 1 WHERE id = ?")) {
+                statement.setLong(1, id);
+                statement.executeUpdate();
+            }
+
+            CompletableFuture<HttpStatusCode> update = CompletableFuture.supplyAsync(() ->
+                    webTestClient.put().uri("/prescriptions/{id}", id)
+                            .bodyValue(request(patientId, "Cetirizine"))
+                            .exchange()
+                            .returnResult(String.class)
+                            .getStatus());
+
+            awaitBlockedUpdate();
+            connection.commit();
+
+            assertEquals(HttpStatus.CONFLICT, update.get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer 422 with the conflicting medications for an interacting prescription")
+    void clinicalConflict() {
+        create("Warfarin");
+
+        webTestClient.post().uri("/prescriptions")
+                .bodyValue(request(patientId, "Aspirin"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Clinical Conflict")
+                .jsonPath("$.details.Warfarin").exists();
+    }
+
+    @Test
+    @DisplayName("Should let only one of two concurrent interacting creates for a patient through")
+    void create_SerializesClinicalChecksPerPatient() throws Exception {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            setUp();
+            CyclicBarrier start = new CyclicBarrier(2);
+            CompletableFuture<HttpStatusCode> warfarin = CompletableFuture.supplyAsync(() -> tryCreate(start, "Warfarin"));
+            CompletableFuture<HttpStatusCode> aspirin = CompletableFuture.supplyAsync(() -> tryCreate(start, "Aspirin"));
+
+            List<HttpStatusCode> statuses = List.of(warfarin.get(30, TimeUnit.SECONDS), aspirin.get(30, TimeUnit.SECONDS));
+            assertTrue(statuses.contains(HttpStatus.CREATED));
+            assertTrue(statuses.contains(HttpStatus.UNPROCESSABLE_ENTITY));
+            assertEquals(1, queryForLong("SELECT count(*) FROM prescriptions WHERE patient_id = " + patientId));
+        }
+    }
+
+    private HttpStatusCode tryCreate(CyclicBarrier start, String medication) {
+        try {
+            start.await(10, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        return webTestClient.post().uri("/prescriptions")
+                .bodyValue(request(patientId, medication))
+                .exchange()
+                .returnResult(String.class)
+                .getStatus();
+    }
+
+    private long create(String medication) {
+        return create(medication, LocalDate.now().plusDays(30));
+    }
+
+    private long create(String medication, LocalDate validUntil) {
+        Map<?, ?> body = webTestClient.post().uri("/prescriptions")
+                .bodyValue(request(patientId, medication, validUntil))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(body);
+        return ((Number) body.get("id")).longValue();
+    }
+
+    private String eTag(long id) {
+        return webTestClient.get().uri("/prescriptions/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+    }
+
+    private long maxAgeOf(long id) {
+        String cacheControl = webTestClient.get().uri("/prescriptions/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getCacheControl();
+        assertNotNull(cacheControl);
+        assertTrue(cacheControl.contains("private"), cacheControl);
+        Matcher maxAge = Pattern.compile("max-age=(\\d+)").matcher(cacheControl);
+        assertTrue(maxAge.find(), cacheControl);
+        return Long.parseLong(maxAge.group(1));
+    }
+
+    private void awaitBlockedUpdate() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queryForLong("SELECT count(*) FROM pg_stat_activity " +
+                "WHERE wait_event_type = 'Lock' AND query ILIKE 'UPDATE%prescriptions%'") == 0) {
+            assertTrue(System.nanoTime() < deadline, "The versioned update never blocked on the row lock");
+            Thread.sleep(20);
+        }
+    }
+
+    private Map<String, Object> request(long patient, String medication) {
+        return request(patient, medication, LocalDate.now().plusDays(30));
+    }
+
+    private Map<String, Object> request(long patient, String medication, LocalDate validUntil) {
+        return Map.of(
+                "patientId", patient,
+                "doctorName", "Dr. Aiym",
+                "medication", medication,
+                "dosage", "500mg twice daily",
+                "issueDate", LocalDate.now().toString(),
+                "validUntil", validUntil.toString());
+    }
+
+    private static long queryForLong(String sql) throws SQLException {
+        try (Connection connection = ReactiveEmbeddedPostgresInitializer.postgres().getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -1,10 +1,106 @@
 package com.example.prescriptions.config;
 
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfiguration {
+
+    public static final String EVENT_EXECUTOR = "prescriptionEventExecutor";
+
+    public enum RejectionPolicy {
+        CALLER_RUNS,
+        DROP
+    }
+
+    /**
+     * Defining {@link #prescriptionEventExecutor} makes Spring Boot back off its own task executor, which also runs
+     * streaming MVC responses, so it is recreated here from Boot's builders.
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(Environment environment,
+                                                     ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder){
+        return Threading.VIRTUAL.isActive(environment)
+                ? simpleAsyncTaskExecutorBuilder.build()
+                : threadPoolTaskExecutorBuilder.build();
+    }
+
+    /**
+     * A bounded platform thread pool by default. With virtual threads every event gets its own virtual thread instead,
+     * and at most {@code max-size + queue-capacity} events may be running or waiting at once, the same bound the pool
+     * has; beyond that the rejection policy applies.
+     */
+    @Bean(name = EVENT_EXECUTOR)
+    public TaskExecutor prescriptionEventExecutor(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${prescriptions.events.executor.core-size:2}") int coreSize,
+            @Value("${prescriptions.events.executor.max-size:4}") int maxSize,
+            @Value("${prescriptions.events.executor.queue-capacity:1000}") int queueCapacity,
+            @Value("${prescriptions.events.executor.rejection-policy:CALLER_RUNS}") RejectionPolicy rejectionPolicy){
+        if (Threading.VIRTUAL.isActive(environment)){
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("prescription-event-");
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(10_000);
+            return new BoundedEventExecutor(executor, maxSize + queueCapacity, rejectionPolicy, meterRegistry);
+        }
+        return threadPoolEventExecutor(coreSize, maxSize, queueCapacity, rejectionPolicy, meterRegistry);
+    }
+
+    static ThreadPoolTaskExecutor threadPoolEventExecutor(int coreSize, int maxSize, int queueCapacity,
+                                                          RejectionPolicy rejectionPolicy, MeterRegistry meterRegistry){
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("prescription-event-");
+        executor.setRejectedExecutionHandler(rejectionHandler(rejectionPolicy, meterRegistry));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    static Counter rejectedCounter(RejectionPolicy policy, MeterRegistry meterRegistry){
+        return Counter.builder("prescriptions.events.rejected")
+                .description("Events that did not fit in the event executor queue")
+                .tag("policy", policy.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(RejectionPolicy policy, MeterRegistry meterRegistry){
+        Counter rejected = rejectedCounter(policy, meterRegistry);
+        RejectedExecutionHandler delegate = policy == RejectionPolicy.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.DiscardPolicy();
+        return (task, executor) -> {
+            rejected.increment();
+            if (policy == RejectionPolicy.DROP) {
+                log.warn("Event executor saturated, dropping event");
+            }
+            delegate.rejectedExecution(task, executor);
+        };
+    }
 }
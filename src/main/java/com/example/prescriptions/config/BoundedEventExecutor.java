@@ -0,0 +1,71 @@
+package com.example.prescriptions.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs each event on its own thread from {@code delegate}, normally a virtual thread, with at most {@code limit}
+ * events running at once. An event that finds no free permit is handled by the {@link AsyncConfiguration.RejectionPolicy}
+ * instead of waiting, like a full thread pool queue.
+ */
+@Slf4j
+class BoundedEventExecutor implements TaskExecutor, AutoCloseable {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final Semaphore permits;
+    private final int limit;
+    private final AsyncConfiguration.RejectionPolicy rejectionPolicy;
+    private final Counter rejected;
+
+    BoundedEventExecutor(SimpleAsyncTaskExecutor delegate, int limit, AsyncConfiguration.RejectionPolicy rejectionPolicy,
+                         MeterRegistry meterRegistry){
+        this.delegate = delegate;
+        this.permits = new Semaphore(limit);
+        this.limit = limit;
+        this.rejectionPolicy = rejectionPolicy;
+        this.rejected = AsyncConfiguration.rejectedCounter(rejectionPolicy, meterRegistry);
+        Gauge.builder("prescriptions.events.in-flight", this, BoundedEventExecutor::inFlight)
+                .description("Events running on the event executor")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task){
+        if (!permits.tryAcquire()){
+            rejected.increment();
+            if (rejectionPolicy == AsyncConfiguration.RejectionPolicy.CALLER_RUNS){
+                task.run();
+            } else {
+                log.warn("Event executor saturated, dropping event");
+            }
+            return;
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException ex){
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close(){
+        delegate.close();
+    }
+
+    int inFlight(){
+        return limit - permits.availablePermits();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.prescriptions.config;
+
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String PRESCRIPTIONS_CACHE = "prescriptions";
+
+    /**
+     * Replaces Boot's Caffeine cache manager so every cache drops values that were loaded while an eviction for the
+     * same key happened, see {@link InvalidationAwareCache}.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${spring.cache.caffeine.spec:}") String spec){
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRESCRIPTIONS_CACHE) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache){
+                return new InvalidationAwareCache(name, cache);
+            }
+        };
+        if (!spec.isBlank()){
+            cacheManager.setCacheSpecification(spec);
+        }
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
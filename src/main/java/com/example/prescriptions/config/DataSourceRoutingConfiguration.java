@@ -0,0 +1,90 @@
+package com.example.prescriptions.config;
+
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import com.example.prescriptions.filter.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active when {@code prescriptions.datasource.replicas.urls} lists at least one replica. {@code spring.datasource.*}
+ * still configures the primary, which also serves Flyway and every read-write transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "prescriptions.datasource.replicas.urls")
+@Slf4j
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${prescriptions.datasource.replicas.urls}") List<String> urls,
+            @Value("${prescriptions.datasource.replicas.username:${spring.datasource.username}}") String username,
+            @Value("${prescriptions.datasource.replicas.password:${spring.datasource.password}}") String password,
+            @Value("${prescriptions.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${prescriptions.datasource.replicas.connection-timeout:2s}") Duration connectionTimeout,
+            @Value("${prescriptions.datasource.replicas.max-lag:5s}") Duration maxLag){
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++){
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(urls.get(i).strip());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // Start even when a replica is down; the health check routes around it until it is back.
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        log.info("Routing read-only transactions to {} replica(s), max lag {}", replicas.size(), maxLag);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource){
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * The window covers the worst replica lag a health check lets through plus the time until the next check.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "prescriptions.datasource.read-your-writes.enabled", havingValue = "true",
+            matchIfMissing = true)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${prescriptions.datasource.replicas.max-lag:5s}") Duration maxLag,
+            @Value("${prescriptions.datasource.replicas.health-check-interval:5s}") Duration healthCheckInterval){
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(maxLag.plus(healthCheckInterval)));
+        registration.addUrlPatterns("/prescriptions/*");
+        return registration;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.prescriptions.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Caffeine cache that does not keep a value loaded before an eviction of the same key.
+ * <p>
+ * A read that misses can load a row, lose the CPU while a writer commits and evicts, and then put the old row back,
+ * where it would stay until it expires. Every eviction bumps a counter for the key's stripe; a load only keeps its
+ * value if the counter is unchanged once the value is in the cache. Evictions bump before removing, so either the
+ * loader sees the bump or the writer's removal comes after the put. Only {@code @Cacheable(sync = true)} goes through
+ * {@link #get(Object, Callable)}, and it loads through Caffeine's per-key atomic {@code get}, so concurrent misses for
+ * one key still share a single load.
+ */
+class InvalidationAwareCache extends CaffeineCache {
+
+    private static final int STRIPES = 1024;
+    private static final long NOT_LOADED = -1;
+
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    InvalidationAwareCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache){
+        super(name, cache, false);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader){
+        int stripe = stripe(key);
+        long[] invalidation = {NOT_LOADED};
+        T value = (T) getNativeCache().get(key, k -> {
+            invalidation[0] = invalidations.get(stripe);
+            try {
+                return valueLoader.call();
+            } catch (Exception ex){
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+        });
+        if (value != null && invalidation[0] != NOT_LOADED && invalidations.get(stripe) != invalidation[0]){
+            super.evict(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void evict(Object key){
+        invalidations.incrementAndGet(stripe(key));
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key){
+        invalidations.incrementAndGet(stripe(key));
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear(){
+        invalidateAllStripes();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate(){
+        invalidateAllStripes();
+        return super.invalidate();
+    }
+
+    private void invalidateAllStripes(){
+        for (int i = 0; i < STRIPES; i++){
+            invalidations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(Object key){
+        return Math.floorMod(key.hashCode(), STRIPES);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.prescriptions.config;
+
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import com.example.prescriptions.filter.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    private static final int REQUESTS_PER_CONNECTION = 2;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${prescriptions.concurrency.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${prescriptions.concurrency.acquire-timeout:2s}") Duration acquireTimeout) throws SQLException {
+        int poolSize = dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                ? dataSource.unwrap(ReplicaRoutingDataSource.class).getMaximumPoolSize()
+                : dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : poolSize * REQUESTS_PER_CONNECTION;
+        log.info("Virtual threads enabled, limiting concurrent requests to {}", limit);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, acquireTimeout, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/prescriptions/*");
+        return registration;
+    }
+}
@@ -1,7 +1,19 @@
 package com.example.prescriptions.controller;
 
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.BulkDeleteRequestDto;
+import com.example.prescriptions.dto.BulkDeleteResponseDto;
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.ExportFormat;
+import com.example.prescriptions.dto.LookupRequestDto;
+import com.example.prescriptions.dto.LookupResponseDto;
+import com.example.prescriptions.dto.PrescriptionPatchDto;
 import com.example.prescriptions.dto.PrescriptionRequestDto;
 import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.exception.ValidationException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,14 +23,33 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.prescriptions.service.PrescriptionService;
+import com.example.prescriptions.service.VersionTags;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/prescriptions")
@@ -26,7 +57,16 @@ import java.util.List;
 @Tag(name = "Prescription Management", description = "APIs for managing medical prescriptions")
 public class PrescriptionController {
 
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = PrescriptionController.class.getName() + ".exportTimeout";
+
     private final PrescriptionService prescriptionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${prescriptions.http.max-age:60s}")
+    private Duration maxAge;
+
+    @Value("${prescriptions.export.timeout:30m}")
+    private Duration exportTimeout;
 
     @PostMapping
     @Operation(summary = "Create a new prescription",
@@ -43,47 +83,133 @@ public class PrescriptionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create prescriptions in bulk",
+            description = "Creates many prescriptions in one call from a JSON array. Each item is validated independently and reported with its own status.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchCreateResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Batch too large")
+    })
+    public ResponseEntity<BatchCreateResponseDto> createPrescriptionBatch(
+            @RequestBody List<PrescriptionRequestDto> requestDtos) {
+        BatchCreateResponseDto responseDto = prescriptionService.createBatch(requestDtos);
+        return ResponseEntity.ok(responseDto);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create prescriptions in bulk from NDJSON",
+            description = "Creates many prescriptions in one call from a newline-delimited JSON stream, one prescription per line.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                    content = @Content(schema = @Schema(implementation = BatchCreateResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Malformed NDJSON or batch too large")
+    })
+    public ResponseEntity<BatchCreateResponseDto> createPrescriptionBatchFromNdjson(InputStream body) {
+        List<PrescriptionRequestDto> requestDtos = new ArrayList<>();
+        try (MappingIterator<PrescriptionRequestDto> iterator =
+                     objectMapper.readerFor(PrescriptionRequestDto.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (requestDtos.size() == PrescriptionService.MAX_BATCH_ITEMS) {
+                    throw new ValidationException(String.format("Batch must not contain more than %d prescriptions",
+                            PrescriptionService.MAX_BATCH_ITEMS));
+                }
+                requestDtos.add(iterator.nextValue());
+            }
+        } catch (IOException ex) {
+            throw new ValidationException("Malformed NDJSON body: " + ex.getMessage());
+        }
+        BatchCreateResponseDto responseDto = prescriptionService.createBatch(requestDtos);
+        return ResponseEntity.ok(responseDto);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get prescription by ID",
             description = "Retrieves a prescription by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Prescription found",
                     content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Prescription unchanged since the ETag sent as If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Prescription not found")
     })
     public ResponseEntity<PrescriptionResponseDto> getPrescriptionById(
-            @Parameter(description = "Prescription ID") @PathVariable Long id) {
+            @Parameter(description = "Prescription ID") @PathVariable Long id,
+            WebRequest webRequest) {
+        if (isNotModified(webRequest, () -> prescriptionService.getVersionTag(id))) {
+            return null;
+        }
         PrescriptionResponseDto responseDto = prescriptionService.getById(id);
-        return ResponseEntity.ok(responseDto);
+        return ResponseEntity.ok()
+                .eTag(eTag(responseDto))
+                .cacheControl(cacheControl(responseDto))
+                .body(responseDto);
     }
 
     @GetMapping("/patient/{patientId}")
-    @Operation(summary = "Get all prescriptions for a patient",
-            description = "Retrieves all prescriptions for a specific patient")
+    @Operation(summary = "Get prescriptions for a patient",
+            description = "Retrieves one page of prescriptions for a specific patient, ordered by ID. Pass nextCursor back as cursor to get the following page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Prescriptions retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class)))
+                    content = @Content(schema = @Schema(implementation = CursorPageResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag sent as If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
     })
-    public ResponseEntity<List<PrescriptionResponseDto>> getPrescriptionsByPatientId(
-            @Parameter(description = "Patient ID") @PathVariable Long patientId) {
-        List<PrescriptionResponseDto> prescriptions = prescriptionService.getByPatientId(patientId);
-        return ResponseEntity.ok(prescriptions);
+    public ResponseEntity<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByPatientId(
+            @Parameter(description = "Patient ID") @PathVariable Long patientId,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 50, max 500)")
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        if (isNotModified(webRequest, () -> prescriptionService.getPatientPageVersionTag(patientId, cursor, size))) {
+            return null;
+        }
+        CursorPageResponseDto<PrescriptionResponseDto> prescriptions =
+                prescriptionService.getByPatientId(patientId, cursor, size);
+        return ResponseEntity.ok()
+                .eTag(quote(VersionTags.ofPage(prescriptions)))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(prescriptions);
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update a prescription",
-            description = "Updates an existing prescription. Patient must exist and validUntil must be after issueDate.")
+            description = "Updates an existing prescription. Patient must exist and validUntil must be after issueDate. Send the ETag from a previous read as If-Match to update only if nobody changed the prescription since.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Prescription updated successfully",
                     content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input or validation error"),
-            @ApiResponse(responseCode = "404", description = "Prescription or patient not found")
+            @ApiResponse(responseCode = "404", description = "Prescription or patient not found"),
+            @ApiResponse(responseCode = "409", description = "Prescription was modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version")
     })
     public ResponseEntity<PrescriptionResponseDto> updatePrescription(
             @Parameter(description = "Prescription ID") @PathVariable Long id,
+            @Parameter(description = "ETag of the version being replaced")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody PrescriptionRequestDto requestDto) {
-        PrescriptionResponseDto responseDto = prescriptionService.update(id, requestDto);
-        return ResponseEntity.ok(responseDto);
+        PrescriptionResponseDto responseDto = prescriptionService.update(id, requestDto, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(responseDto)).body(responseDto);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Partially update a prescription",
+            description = "Changes only the fields present in the body, for example just the dosage. Only changed columns are written. Supports If-Match like PUT.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Prescription updated successfully",
+                    content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input or validation error"),
+            @ApiResponse(responseCode = "404", description = "Prescription or patient not found"),
+            @ApiResponse(responseCode = "409", description = "Prescription was modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version")
+    })
+    public ResponseEntity<PrescriptionResponseDto> patchPrescription(
+            @Parameter(description = "Prescription ID") @PathVariable Long id,
+            @Parameter(description = "ETag of the version being changed")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody PrescriptionPatchDto patchDto) {
+        PrescriptionResponseDto responseDto = prescriptionService.patch(id, patchDto, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(responseDto)).body(responseDto);
     }
 
     @DeleteMapping("/{id}")
@@ -99,33 +225,193 @@ public class PrescriptionController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/lookup")
+    @Operation(summary = "Look up many prescriptions and patients at once",
+            description = "Resolves up to 1000 prescription IDs and 200 patient IDs with one query per kind. Results are keyed by the requested IDs; unknown IDs are listed in missingIds and missingPatientIds instead of failing the call. Each patient returns at most 100 prescriptions; patients cut off are listed in truncatedPatientIds.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lookup completed",
+                    content = @Content(schema = @Schema(implementation = LookupResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "No IDs or too many IDs")
+    })
+    public ResponseEntity<LookupResponseDto> lookupPrescriptions(
+            @Valid @RequestBody LookupRequestDto requestDto) {
+        return ResponseEntity.ok(prescriptionService.lookup(requestDto));
+    }
+
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Delete prescriptions by ID",
+            description = "Deletes up to 10000 prescriptions in one statement. IDs that do not exist are ignored; the response reports how many rows were deleted.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Prescriptions deleted",
+                    content = @Content(schema = @Schema(implementation = BulkDeleteResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "No IDs or too many IDs")
+    })
+    public ResponseEntity<BulkDeleteResponseDto> deletePrescriptions(
+            @Valid @RequestBody BulkDeleteRequestDto requestDto) {
+        long deleted = prescriptionService.deleteByIds(requestDto.getIds());
+        return ResponseEntity.ok(BulkDeleteResponseDto.builder().deleted(deleted).build());
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Purge expired prescriptions",
+            description = "Deletes every prescription whose validUntil is before the cutoff, in chunks that each commit on their own")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Expired prescriptions purged",
+                    content = @Content(schema = @Schema(implementation = BulkDeleteResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Cutoff is in the future")
+    })
+    public ResponseEntity<BulkDeleteResponseDto> purgeExpiredPrescriptions(
+            @Parameter(description = "Delete prescriptions valid until before this date (yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validUntilBefore) {
+        long deleted = prescriptionService.purgeExpiredBefore(validUntilBefore);
+        return ResponseEntity.ok(BulkDeleteResponseDto.builder().deleted(deleted).build());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search prescriptions by medication or doctor",
+            description = "Prefix, substring and typo-tolerant search over medication and doctor name. Prefix matches come first, then the closest trigram matches.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching prescriptions retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Query shorter than 3 characters, invalid cursor or page size")
+    })
+    public ResponseEntity<CursorPageResponseDto<PrescriptionResponseDto>> searchPrescriptions(
+            @Parameter(description = "Search text, at least 3 characters") @RequestParam String q,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 50, max 500)")
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(prescriptionService.search(q, cursor, size));
+    }
+
     @GetMapping("/filter/doctor")
     @Operation(summary = "Filter prescriptions by doctor",
-            description = "Retrieves all prescriptions prescribed by a specific doctor")
+            description = "Retrieves one page of prescriptions prescribed by a specific doctor, ordered by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Prescriptions retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class)))
+                    content = @Content(schema = @Schema(implementation = CursorPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
     })
-    public ResponseEntity<List<PrescriptionResponseDto>> getPrescriptionsByDoctor(
-            @Parameter(description = "Doctor name") @RequestParam String doctorName) {
-        List<PrescriptionResponseDto> prescriptions = prescriptionService.getByDoctorName(doctorName);
+    public ResponseEntity<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByDoctor(
+            @Parameter(description = "Doctor name") @RequestParam String doctorName,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 50, max 500)")
+            @RequestParam(required = false) Integer size) {
+        CursorPageResponseDto<PrescriptionResponseDto> prescriptions =
+                prescriptionService.getByDoctorName(doctorName, cursor, size);
         return ResponseEntity.ok(prescriptions);
     }
 
     @GetMapping("/filter/date-range")
     @Operation(summary = "Filter prescriptions by date range",
-            description = "Retrieves all prescriptions issued within a specific date range")
+            description = "Retrieves one page of prescriptions issued within a specific date range, ordered by issue date and ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Prescriptions retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = PrescriptionResponseDto.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid date range")
+                    content = @Content(schema = @Schema(implementation = CursorPageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range, cursor or page size")
     })
-    public ResponseEntity<List<PrescriptionResponseDto>> getPrescriptionsByDateRange(
+    public ResponseEntity<CursorPageResponseDto<PrescriptionResponseDto>> getPrescriptionsByDateRange(
             @Parameter(description = "Start date (format: yyyy-MM-dd)")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @Parameter(description = "End date (format: yyyy-MM-dd)")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<PrescriptionResponseDto> prescriptions = prescriptionService.getByDateRange(startDate, endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (default 50, max 500)")
+            @RequestParam(required = false) Integer size) {
+        CursorPageResponseDto<PrescriptionResponseDto> prescriptions =
+                prescriptionService.getByDateRange(startDate, endDate, cursor, size);
         return ResponseEntity.ok(prescriptions);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/export")
+    @Operation(summary = "Export prescriptions by date range",
+            description = "Streams all prescriptions issued within a specific date range as NDJSON or CSV without buffering the result set")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or format")
+    })
+    public ResponseEntity<StreamingResponseBody> exportPrescriptions(
+            @Parameter(description = "Start date (format: yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (format: yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Export format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            WebRequest webRequest) {
+        if (startDate.isAfter(endDate)) {
+            throw new ValidationException("Start date must be before or equal to end date");
+        }
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        StreamingResponseBody body = outputStream ->
+                prescriptionService.exportByDateRange(startDate, endDate, exportFormat, outputStream);
+        extendAsyncTimeout(webRequest, exportTimeout);
+
+        String fileName = String.format("prescriptions-%s-%s.%s", startDate, endDate, exportFormat.getFileExtension());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Streaming bodies are written under the global {@code spring.mvc.async.request-timeout}. Only the export gets a
+     * longer one, so a stalled client elsewhere cannot hold its concurrency permit for as long.
+     */
+    private static void extendAsyncTimeout(WebRequest webRequest, Duration timeout) {
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        if (request instanceof AsyncWebRequest asyncWebRequest) {
+                            asyncWebRequest.setTimeout(timeout.toMillis());
+                        }
+                    }
+                });
+    }
+
+    private static String eTag(PrescriptionResponseDto prescription) {
+        return quote(VersionTags.of(prescription));
+    }
+
+    /**
+     * Only computes the current tag when the client sent one to compare, so unconditional reads cost one query.
+     */
+    private static boolean isNotModified(WebRequest webRequest, Supplier<String> currentTag) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(quote(currentTag.get()));
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Lets clients cache a prescription for {@code prescriptions.http.max-age}, but never past the moment it expires,
+     * since {@code isExpired} flips then.
+     */
+    private CacheControl cacheControl(PrescriptionResponseDto prescription) {
+        Duration maxAge = this.maxAge;
+        if (!Boolean.TRUE.equals(prescription.getIsExpired())) {
+            Duration untilExpiry = Duration.between(LocalDateTime.now(),
+                    prescription.getValidUntil().plusDays(1).atStartOfDay());
+            if (untilExpiry.compareTo(maxAge) < 0) {
+                maxAge = untilExpiry.isNegative() ? Duration.ZERO : untilExpiry;
+            }
+        }
+        return CacheControl.maxAge(maxAge).cachePrivate();
+    }
+
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        try {
+            return VersionTags.parseVersion(ifMatch);
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("If-Match " + ifMatch + " does not match any prescription version");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.prescriptions.controller;
+
+import com.example.prescriptions.dto.PrescriptionStatisticsDto;
+import com.example.prescriptions.service.PrescriptionStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/prescriptions/stats")
+@RequiredArgsConstructor
+@Tag(name = "Prescription Statistics", description = "Aggregated prescription counts for dashboards")
+public class PrescriptionStatisticsController {
+
+    private final PrescriptionStatisticsService statisticsService;
+
+    @GetMapping
+    @Operation(summary = "Get prescription statistics",
+            description = "Active and expired totals, plus counts per doctor, per medication and per month of issue for a range of months")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = PrescriptionStatisticsDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid month range or limit")
+    })
+    public ResponseEntity<PrescriptionStatisticsDto> getStatistics(
+            @Parameter(description = "First month of issue (yyyy-MM), defaults to 11 months before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @Parameter(description = "Last month of issue (yyyy-MM), defaults to the current month")
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @Parameter(description = "Doctors and medications to return, largest first (default 20, max 500)")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(statisticsService.getStatistics(from, to, limit));
+    }
+}
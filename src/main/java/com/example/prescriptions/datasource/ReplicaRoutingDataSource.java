@@ -0,0 +1,268 @@
+package com.example.prescriptions.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the healthy replicas in turn and everything else to the primary. Replicas are
+ * health-checked on a schedule and dropped while unreachable or lagging by more than {@code maxLag}; a replica that
+ * fails to hand out a connection is dropped immediately and the read falls back to the primary.
+ * <p>
+ * The choice is made when a connection is first requested, so this has to sit behind a
+ * {@code LazyConnectionDataSourceProxy}: the transaction's read-only flag is only set after it has begun.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Runnable> COMMITTED_WRITE_LISTENER = new ThreadLocal<>();
+    private static final String REPLICATION_LAG =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Counter primaryConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    MeterRegistry meterRegistry){
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.meterRegistry = meterRegistry;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            targets.put(name, dataSource);
+            Gauge.builder("prescriptions.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the replica currently receives read-only transactions")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("prescriptions.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag seen by the last health check")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        this.primaryConnections = connectionCounter(PRIMARY);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs {@code action} with any connection it opens taken from the primary, e.g. to read back a client's own write.
+     */
+    public static <T> T onPrimary(Supplier<T> action){
+        try (Pin ignored = pinToPrimary()) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Takes connections opened on this thread from the primary until the returned pin is closed.
+     */
+    public static Pin pinToPrimary(){
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null){
+                PINNED_TO_PRIMARY.remove();
+            } else {
+                PINNED_TO_PRIMARY.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Runs {@code listener} after every read-write transaction on this thread that took a primary connection commits,
+     * until the returned scope is closed. Rolled-back and read-only transactions do not call it.
+     */
+    public static Pin onCommittedWrite(Runnable listener){
+        Runnable previous = COMMITTED_WRITE_LISTENER.get();
+        COMMITTED_WRITE_LISTENER.set(listener);
+        return () -> {
+            if (previous == null){
+                COMMITTED_WRITE_LISTENER.remove();
+            } else {
+                COMMITTED_WRITE_LISTENER.set(previous);
+            }
+        };
+    }
+
+    public static boolean isPinnedToPrimary(){
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    @Override
+    public void afterPropertiesSet(){
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = selectReplica();
+        if (replica == null){
+            primaryConnections.increment();
+            registerCommittedWriteListener();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replica.connections.increment();
+            return connection;
+        } catch (SQLException ex) {
+            markUnhealthy(replica, ex);
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        Replica replica = selectReplica();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    @Scheduled(fixedDelayString = "${prescriptions.datasource.replicas.health-check-interval:5s}",
+            initialDelayString = "${prescriptions.datasource.replicas.health-check-interval:5s}")
+    public void checkReplicas(){
+        for (Replica replica : replicas){
+            try {
+                double lag = replicationLagSeconds(replica.dataSource);
+                replica.lagSeconds = lag;
+                boolean healthy = lag <= maxLag.toMillis() / 1000.0;
+                if (healthy != replica.healthy){
+                    log.info("Replica {} is {} (lag {}s)", replica.name, healthy ? "healthy" : "lagging", lag);
+                }
+                replica.healthy = healthy;
+            } catch (SQLException | RuntimeException ex) {
+                markUnhealthy(replica, ex);
+            }
+        }
+    }
+
+    /**
+     * Total connections available across the primary and all replicas.
+     */
+    public int getMaximumPoolSize() throws SQLException {
+        int size = primary.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        for (Replica replica : replicas){
+            size += replica.dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        }
+        return size;
+    }
+
+    /**
+     * Closes the replica pools; the primary is owned by its own bean.
+     */
+    @Override
+    public void close(){
+        for (Replica replica : replicas){
+            if (replica.dataSource instanceof AutoCloseable closeable){
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close replica {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    double replicationLagSeconds(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(REPLICATION_LAG)) {
+            resultSet.next();
+            return resultSet.getDouble(1);
+        }
+    }
+
+    private Replica selectReplica(){
+        if (replicas.isEmpty() || isPinnedToPrimary() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++){
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy){
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static void registerCommittedWriteListener(){
+        Runnable listener = COMMITTED_WRITE_LISTENER.get();
+        if (listener == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit(){
+                listener.run();
+            }
+        });
+    }
+
+    private void markUnhealthy(Replica replica, Exception ex){
+        if (replica.healthy){
+            log.warn("Replica {} is unavailable, routing its reads to the primary: {}", replica.name, ex.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    private Counter connectionCounter(String target){
+        return Counter.builder("prescriptions.datasource.connections")
+                .description("Connections handed out, by target database")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    public interface Pin extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        private volatile boolean healthy;
+        private volatile double lagSeconds;
+
+        private Replica(String name, DataSource dataSource){
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = connectionCounter(name);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchCreateResponseDto {
+    private int total;
+    private int created;
+    private int failed;
+    private List<BatchItemResultDto> results;
+}
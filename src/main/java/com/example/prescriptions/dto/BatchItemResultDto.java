@@ -0,0 +1,21 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemResultDto {
+    private int index;
+    private Status status;
+    private PrescriptionResponseDto prescription;
+    private String error;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.prescriptions.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDeleteRequestDto {
+    @NotEmpty(message = "At least one prescription ID is required")
+    @Size(max = 10_000, message = "At most 10000 prescriptions can be deleted per request")
+    private List<Long> ids;
+}
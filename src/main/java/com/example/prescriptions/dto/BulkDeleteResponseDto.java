@@ -0,0 +1,13 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDeleteResponseDto {
+    private long deleted;
+}
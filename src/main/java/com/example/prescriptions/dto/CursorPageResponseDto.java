@@ -0,0 +1,18 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponseDto<T> {
+    private List<T> items;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
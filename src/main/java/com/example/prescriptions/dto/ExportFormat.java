@@ -0,0 +1,25 @@
+package com.example.prescriptions.dto;
+
+import com.example.prescriptions.exception.ValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    public static ExportFormat from(String value){
+        try {
+            return ExportFormat.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex){
+            throw new ValidationException(String.format("Unsupported export format %s, expected ndjson or csv", value));
+        }
+    }
+}
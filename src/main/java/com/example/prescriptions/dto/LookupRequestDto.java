@@ -0,0 +1,20 @@
+package com.example.prescriptions.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LookupRequestDto {
+    @Size(max = 1_000, message = "At most 1000 prescription IDs can be looked up per request")
+    private List<Long> ids;
+
+    @Size(max = 200, message = "At most 200 patient IDs can be looked up per request")
+    private List<Long> patientIds;
+}
@@ -0,0 +1,20 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LookupResponseDto {
+    private Map<Long, PrescriptionResponseDto> prescriptions;
+    private List<Long> missingIds;
+    private Map<Long, List<PrescriptionResponseDto>> patients;
+    private List<Long> missingPatientIds;
+    private List<Long> truncatedPatientIds;
+}
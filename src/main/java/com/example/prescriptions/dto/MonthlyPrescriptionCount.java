@@ -0,0 +1,13 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+
+@Value
+@AllArgsConstructor
+public class MonthlyPrescriptionCount {
+    LocalDate month;
+    Long prescriptions;
+}
@@ -0,0 +1,11 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+
+@Value
+@AllArgsConstructor
+public class PrescriptionCount {
+    String name;
+    Long prescriptions;
+}
@@ -0,0 +1,31 @@
+package com.example.prescriptions.dto;
+
+import java.time.LocalDate;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PrescriptionPatchDto {
+    private Long patientId;
+
+    @Size(min = 1, max = 100, message = "Doctor name must be between 1 and 100 characters.")
+    private String doctorName;
+
+    @Size(min = 1, max = 200, message = "Medication must be between 1 and 200 characters.")
+    private String medication;
+
+    @Size(min = 1, max = 100, message = "Dosage must be between 1 and 100 characters.")
+    private String dosage;
+
+    @PastOrPresent(message = "Issue date cannot be in the future.")
+    private LocalDate issueDate;
+
+    @Future(message = "Valid until date must be in the future.")
+    private LocalDate validUntil;
+}
@@ -18,5 +18,6 @@ public class PrescriptionResponseDto{
     private LocalDate issueDate;
     private LocalDate validUntil;
     private Boolean isExpired;
+    private Long version;
 
 }
\ No newline at end of file
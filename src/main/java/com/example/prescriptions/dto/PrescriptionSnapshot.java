@@ -0,0 +1,20 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+
+@Value
+@Builder
+@AllArgsConstructor
+public class PrescriptionSnapshot {
+    Long id;
+    Long patientId;
+    String doctorName;
+    String medication;
+    String dosage;
+    LocalDate issueDate;
+    LocalDate validUntil;
+    Long version;
+}
@@ -0,0 +1,23 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PrescriptionStatisticsDto {
+    private long total;
+    private long active;
+    private long expired;
+    private YearMonth from;
+    private YearMonth to;
+    private List<PrescriptionCount> byDoctor;
+    private List<PrescriptionCount> byMedication;
+    private List<PrescriptionCount> byMonth;
+}
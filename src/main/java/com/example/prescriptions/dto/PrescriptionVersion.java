@@ -0,0 +1,14 @@
+package com.example.prescriptions.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+
+@Value
+@AllArgsConstructor
+public class PrescriptionVersion {
+    Long id;
+    Long version;
+    LocalDate validUntil;
+}
@@ -5,6 +5,7 @@ import lombok.*;
 
 @Entity
 @Table(name = "patients")
+@EntityListeners(PatientExistenceListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
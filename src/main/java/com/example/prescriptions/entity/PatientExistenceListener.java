@@ -0,0 +1,34 @@
+package com.example.prescriptions.entity;
+
+import com.example.prescriptions.service.impl.PatientExistenceIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RequiredArgsConstructor
+public class PatientExistenceListener {
+    private final ObjectProvider<PatientExistenceIndex> patientExistenceIndex;
+
+    @PostPersist
+    public void afterPersist(Patient patient){
+        Long patientId = patient.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()){
+            patientExistenceIndex.getObject().add(patientId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit(){
+                patientExistenceIndex.getObject().add(patientId);
+            }
+        });
+    }
+
+    @PostRemove
+    public void afterRemove(Patient patient){
+        patientExistenceIndex.getObject().remove(patient.getId());
+    }
+}
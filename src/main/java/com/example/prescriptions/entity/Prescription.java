@@ -2,11 +2,13 @@ package com.example.prescriptions.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "prescriptions")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +17,8 @@ import java.time.LocalDate;
 public class Prescription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescription_seq")
+    @SequenceGenerator(name = "prescription_seq", sequenceName = "prescriptions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,4 +38,7 @@ public class Prescription {
 
     @Column(nullable = false)
     private LocalDate validUntil;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
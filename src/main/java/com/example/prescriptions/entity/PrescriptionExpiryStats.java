@@ -0,0 +1,25 @@
+package com.example.prescriptions.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of {@code prescription_expiry_stats_current}: the folded {@code prescription_expiry_stats} rollup plus the trigger deltas not folded yet.
+ */
+@Entity
+@Table(name = "prescription_expiry_stats_current")
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescriptionExpiryStats {
+
+    @Id
+    private LocalDate validUntil;
+
+    @Column(nullable = false)
+    private long prescriptions;
+}
@@ -0,0 +1,35 @@
+package com.example.prescriptions.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of {@code prescription_stats_current}: the folded {@code prescription_stats} rollup plus the trigger deltas not folded yet.
+ */
+@Entity
+@Table(name = "prescription_stats_current")
+@IdClass(PrescriptionStatsId.class)
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescriptionStats {
+
+    @Id
+    @Column(nullable = false, length = 100)
+    private String doctorName;
+
+    @Id
+    @Column(nullable = false, length = 200)
+    private String medication;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate issueMonth;
+
+    @Column(nullable = false)
+    private long prescriptions;
+}
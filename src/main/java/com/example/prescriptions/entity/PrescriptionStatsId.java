@@ -0,0 +1,16 @@
+package com.example.prescriptions.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class PrescriptionStatsId implements Serializable {
+    private String doctorName;
+    private String medication;
+    private LocalDate issueMonth;
+}
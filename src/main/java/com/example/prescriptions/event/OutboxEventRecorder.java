@@ -0,0 +1,93 @@
+package com.example.prescriptions.event;
+
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.entity.OutboxEvent;
+import com.example.prescriptions.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes prescription events to the outbox table in the publishing transaction, so an event is stored if and only
+ * if the change that caused it commits. {@code OutboxRelay} delivers them afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxEventRecorder {
+    public static final String PRESCRIPTION_CREATED = "PrescriptionCreated";
+    public static final String PRESCRIPTION_UPDATED = "PrescriptionUpdated";
+    public static final String PRESCRIPTION_DELETED = "PrescriptionDeleted";
+    public static final String PRESCRIPTION_ARCHIVED = "PrescriptionArchived";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionCreated(PrescriptionCreatedEvent event){
+        PrescriptionResponseDto prescription = event.getPrescription();
+        outboxEventRepository.save(toOutboxEvent(prescription.getId(), PRESCRIPTION_CREATED, prescription));
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionsBatchCreated(PrescriptionsBatchCreatedEvent event){
+        List<OutboxEvent> outboxEvents = event.getPrescriptions().stream()
+                .map(prescription -> toOutboxEvent(prescription.getId(), PRESCRIPTION_CREATED, prescription))
+                .toList();
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionUpdated(PrescriptionUpdatedEvent event){
+        PrescriptionResponseDto prescription = event.getPrescription();
+        outboxEventRepository.save(toOutboxEvent(prescription.getId(), PRESCRIPTION_UPDATED, prescription));
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionDeleted(PrescriptionDeletedEvent event){
+        Long prescriptionId = event.getPrescriptionId();
+        outboxEventRepository.save(toOutboxEvent(prescriptionId, PRESCRIPTION_DELETED, Map.of("id", prescriptionId)));
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionsDeleted(PrescriptionsDeletedEvent event){
+        List<OutboxEvent> outboxEvents = event.getPrescriptionIds().stream()
+                .map(prescriptionId -> toOutboxEvent(prescriptionId, PRESCRIPTION_DELETED, Map.of("id", prescriptionId)))
+                .toList();
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPrescriptionsArchived(PrescriptionsArchivedEvent event){
+        List<OutboxEvent> outboxEvents = event.getPrescriptionIds().stream()
+                .map(prescriptionId -> toOutboxEvent(prescriptionId, PRESCRIPTION_ARCHIVED, Map.of("id", prescriptionId)))
+                .toList();
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    private OutboxEvent toOutboxEvent(Long aggregateId, String eventType, Object payload){
+        try {
+            return OutboxEvent.builder()
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(Instant.now())
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event for " + aggregateId, ex);
+        }
+    }
+}
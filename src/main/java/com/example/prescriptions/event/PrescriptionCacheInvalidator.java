@@ -0,0 +1,46 @@
+package com.example.prescriptions.event;
+
+import com.example.prescriptions.config.CacheConfiguration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PrescriptionCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handlePrescriptionUpdated(PrescriptionUpdatedEvent event){
+        evict(event.getPrescription().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handlePrescriptionDeleted(PrescriptionDeletedEvent event){
+        evict(event.getPrescriptionId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handlePrescriptionsDeleted(PrescriptionsDeletedEvent event){
+        event.getPrescriptionIds().forEach(this::evict);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handlePrescriptionsArchived(PrescriptionsArchivedEvent event){
+        event.getPrescriptionIds().forEach(this::evict);
+    }
+
+    private void evict(Long prescriptionId){
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRESCRIPTIONS_CACHE);
+        if (cache != null){
+            cache.evict(prescriptionId);
+            log.debug("Evicted cached prescription with Id: {}", prescriptionId);
+        }
+    }
+}
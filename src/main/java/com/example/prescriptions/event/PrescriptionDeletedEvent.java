@@ -0,0 +1,13 @@
+package com.example.prescriptions.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+@Getter
+public class PrescriptionDeletedEvent extends ApplicationEvent {
+    private final Long prescriptionId;
+
+    public PrescriptionDeletedEvent(Object source, Long prescriptionId){
+        super(source);
+        this.prescriptionId = prescriptionId;
+    }
+}
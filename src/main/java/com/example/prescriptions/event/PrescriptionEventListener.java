@@ -1,28 +1,50 @@
 package com.example.prescriptions.event;
 
+import com.example.prescriptions.config.AsyncConfiguration;
 import com.example.prescriptions.dto.PrescriptionResponseDto;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
 
 
 @Component
 @Slf4j
 public class PrescriptionEventListener{
-    @EventListener
-    @Async
-
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Async(AsyncConfiguration.EVENT_EXECUTOR)
     public void handlePrescriptionCreated(PrescriptionCreatedEvent event){
+        if (!log.isInfoEnabled()){
+            return;
+        }
+
         PrescriptionResponseDto prescription = event.getPrescription();
+        log.info("Prescription notification {} {} {} {} {} {} {}",
+                kv("prescriptionId", prescription.getId()),
+                kv("patientId", prescription.getPatientId()),
+                kv("doctorName", prescription.getDoctorName()),
+                kv("medication", prescription.getMedication()),
+                kv("dosage", prescription.getDosage()),
+                kv("issueDate", prescription.getIssueDate()),
+                kv("validUntil", prescription.getValidUntil()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Async(AsyncConfiguration.EVENT_EXECUTOR)
+    public void handlePrescriptionsBatchCreated(PrescriptionsBatchCreatedEvent event){
+        List<PrescriptionResponseDto> prescriptions = event.getPrescriptions();
+        if (prescriptions.isEmpty()){
+            return;
+        }
 
-        log.info("PRESCRIPTION - NOTIFICATION");
-        log.info("Prescription id: {}", prescription.getId());
-        log.info("Patient id: {}", prescription.getPatientId());
-        log.info("Doctor: {}", prescription.getDoctorName());
-        log.info("Medication: {}", prescription.getMedication());
-        log.info("Dosage: {}", prescription.getDosage());
-        log.info("Valid from: {} and valid until: {}", prescription.getIssueDate(), prescription.getValidUntil());
+        log.info("Prescription batch notification {} {} {}",
+                kv("count", prescriptions.size()),
+                kv("firstPrescriptionId", prescriptions.get(0).getId()),
+                kv("lastPrescriptionId", prescriptions.get(prescriptions.size() - 1).getId()));
     }
 }
-
@@ -0,0 +1,14 @@
+package com.example.prescriptions.event;
+
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+@Getter
+public class PrescriptionUpdatedEvent extends ApplicationEvent {
+    private final PrescriptionResponseDto prescription;
+
+    public PrescriptionUpdatedEvent(Object source, PrescriptionResponseDto prescription){
+        super(source);
+        this.prescription = prescription;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.prescriptions.event;
+
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+@Getter
+public class PrescriptionsBatchCreatedEvent extends ApplicationEvent {
+    private final List<PrescriptionResponseDto> prescriptions;
+
+    public PrescriptionsBatchCreatedEvent(Object source, List<PrescriptionResponseDto> prescriptions){
+        super(source);
+        this.prescriptions = prescriptions;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.prescriptions.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+@Getter
+public class PrescriptionsDeletedEvent extends ApplicationEvent {
+    private final List<Long> prescriptionIds;
+
+    public PrescriptionsDeletedEvent(Object source, List<Long> prescriptionIds){
+        super(source);
+        this.prescriptionIds = prescriptionIds;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.prescriptions.exception;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+public class ClinicalConflictException extends RuntimeException{
+    private final Map<String, String> conflicts;
+
+    public ClinicalConflictException(String medication, Map<String, String> conflicts){
+        super(String.format("%s conflicts with the patient's active prescriptions", medication));
+        this.conflicts = conflicts;
+    }
+}
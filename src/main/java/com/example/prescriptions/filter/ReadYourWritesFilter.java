@@ -0,0 +1,92 @@
+package com.example.prescriptions.filter;
+
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pins a client's reads to the primary for {@code window} after each of its writes, so it never reads an older state
+ * than it wrote. A write sets a cookie holding the end of the window once one of its read-write transactions commits,
+ * which happens before the handler writes the body; rejected writes and {@code POST}s that only read leave the client
+ * on the replicas. Requests carrying an unexpired cookie run with {@link ReplicaRoutingDataSource#pinToPrimary}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "prescriptions-primary-until";
+
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(),
+            HttpMethod.OPTIONS.name());
+    private static final Set<String> READ_POSTS = Set.of("/prescriptions/lookup");
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window){
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isWrite(request)){
+            AtomicBoolean pinned = new AtomicBoolean();
+            Runnable pin = () -> {
+                if (!response.isCommitted() && pinned.compareAndSet(false, true)){
+                    response.addCookie(pinCookie());
+                }
+            };
+            try (ReplicaRoutingDataSource.Pin ignored = ReplicaRoutingDataSource.onCommittedWrite(pin)) {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+        if (pinnedUntil(request) <= System.currentTimeMillis()){
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (ReplicaRoutingDataSource.Pin ignored = ReplicaRoutingDataSource.pinToPrimary()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private Cookie pinCookie(){
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + window.toMillis()));
+        cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+
+    private static boolean isWrite(HttpServletRequest request){
+        if (READ_METHODS.contains(request.getMethod())){
+            return false;
+        }
+        return !READ_POSTS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private static long pinnedUntil(HttpServletRequest request){
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null){
+            return 0L;
+        }
+        for (Cookie cookie : cookies){
+            if (COOKIE_NAME.equals(cookie.getName())){
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+}
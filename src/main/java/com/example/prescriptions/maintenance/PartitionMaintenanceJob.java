@@ -0,0 +1,129 @@
+package com.example.prescriptions.maintenance;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps monthly {@code prescriptions} partitions available ahead of time and drops old partitions once the archival
+ * job has emptied them. Rows that already landed in the default partition for a new month are moved into it.
+ */
+@Component
+@Slf4j
+public class PartitionMaintenanceJob {
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PARTITION_PREFIX = "prescriptions_";
+    private static final String DEFAULT_PARTITION = "prescriptions_default";
+    // Parent first, in the order inserts take their locks, so a concurrent insert cannot deadlock with the move.
+    private static final String PARTITION_LOCK =
+            "LOCK TABLE ONLY prescriptions, ONLY " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int keepMonths;
+
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${prescriptions.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${prescriptions.partitioning.keep-months:12}") int keepMonths){
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.keepMonths = keepMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${prescriptions.partitioning.cron:0 0 1 * * *}")
+    public void maintainPartitions(){
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        dropEmptyPartitionsBefore(current.minusMonths(keepMonths));
+    }
+
+    private void createPartition(YearMonth month){
+        String partition = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        Integer moved;
+        try {
+            moved = transactionTemplate.execute(status -> {
+                // Postgres refuses the new partition while the default partition holds rows for its range, so those
+                // rows move out first. Until the partition exists the range prunes to the default partition; both
+                // statements go through the parent so the statistics triggers see the delete and the re-insert.
+                jdbcTemplate.execute(PARTITION_LOCK);
+                jdbcTemplate.execute("CREATE TEMPORARY TABLE prescriptions_moving (LIKE prescriptions) ON COMMIT DROP");
+                int count = jdbcTemplate.update(
+                        "WITH moved AS (DELETE FROM prescriptions WHERE issue_date >= ? AND issue_date < ? RETURNING *) " +
+                                "INSERT INTO prescriptions_moving SELECT * FROM moved",
+                        month.atDay(1), month.plusMonths(1).atDay(1));
+                jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF prescriptions FOR VALUES FROM ('%s') TO ('%s')",
+                        partition, month.atDay(1), month.plusMonths(1).atDay(1)));
+                jdbcTemplate.update("INSERT INTO prescriptions SELECT * FROM prescriptions_moving");
+                return count;
+            });
+        } catch (DataAccessException ex) {
+            log.warn("Could not create partition {}: {}", partition, ex.getMostSpecificCause().getMessage());
+            return;
+        }
+        if (moved != null && moved > 0) {
+            log.info("Created partition {} and moved {} rows into it from {}", partition, moved, DEFAULT_PARTITION);
+        } else {
+            log.info("Created partition {}", partition);
+        }
+    }
+
+    private void dropEmptyPartitionsBefore(YearMonth oldestKept){
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'prescriptions'", String.class);
+        for (String partition : partitions) {
+            parseMonth(partition)
+                    .filter(month -> month.isBefore(oldestKept))
+                    .ifPresent(month -> dropIfEmpty(partition));
+        }
+    }
+
+    private void dropIfEmpty(String partition){
+        Boolean dropped = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE");
+            Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (!Boolean.TRUE.equals(empty)) {
+                return false;
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            return true;
+        });
+        if (Boolean.TRUE.equals(dropped)) {
+            log.info("Dropped empty partition {}", partition);
+        }
+    }
+
+    static String partitionName(YearMonth month){
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    static Optional<YearMonth> parseMonth(String partition){
+        if (!partition.matches(PARTITION_PREFIX + "\\d{4}_\\d{2}")) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+    }
+}
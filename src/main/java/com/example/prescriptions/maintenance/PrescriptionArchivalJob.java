@@ -0,0 +1,71 @@
+package com.example.prescriptions.maintenance;
+
+import com.example.prescriptions.event.PrescriptionsArchivedEvent;
+import com.example.prescriptions.repository.PrescriptionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * Moves prescriptions that expired more than {@code prescriptions.archive.expired-for} ago from the partitioned hot
+ * table into {@code prescriptions_archive}. Each chunk is one statement in its own transaction and claims rows with
+ * {@code SKIP LOCKED}, so several instances can run the job at once.
+ */
+@Component
+@ConditionalOnProperty(name = "prescriptions.archive.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PrescriptionArchivalJob {
+    private final PrescriptionRepository prescriptionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Period expiredFor;
+    private final int chunkSize;
+    private final Counter archived;
+
+    public PrescriptionArchivalJob(PrescriptionRepository prescriptionRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${prescriptions.archive.expired-for:90d}") Period expiredFor,
+                                   @Value("${prescriptions.archive.chunk-size:1000}") int chunkSize){
+        this.prescriptionRepository = prescriptionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.expiredFor = expiredFor;
+        this.chunkSize = chunkSize;
+        this.archived = Counter.builder("prescriptions.archive.archived")
+                .description("Prescriptions moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${prescriptions.archive.cron:0 30 2 * * *}")
+    public long archiveExpired(){
+        LocalDate cutoff = LocalDate.now().minus(expiredFor);
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = prescriptionRepository.archiveExpiredBefore(cutoff, chunkSize);
+                if (!ids.isEmpty()) {
+                    eventPublisher.publishEvent(new PrescriptionsArchivedEvent(this, ids));
+                }
+                return ids.size();
+            });
+            total += moved;
+            archived.increment(moved);
+        } while (moved == chunkSize);
+
+        log.info("Archived {} prescriptions valid until before {}", total, cutoff);
+        return total;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.prescriptions.maintenance;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the statistics rollups in step with {@code prescriptions}. The statement triggers only append deltas, and
+ * {@link #fold()} regularly moves them into the rollups in one transaction, so it is the only writer of rollup rows.
+ * {@link #recompute()} recounts {@code prescriptions} nightly and corrects any group whose count drifted. The drift is
+ * measured against the rollups plus pending deltas in one repeatable-read snapshot without locking anything: a write
+ * and its deltas commit together, as do a fold's deletes and upserts, so the snapshot sees both or neither. The drift is
+ * then appended as deltas of its own. Writes that commit in between append theirs, which stay correct on top of the fix.
+ */
+@Component
+@Slf4j
+public class StatisticsRecomputeJob {
+    private static final String STATS_DRIFT =
+            "SELECT doctor_name, medication, issue_month, sum(prescriptions) AS drift FROM (" +
+                    "SELECT doctor_name, medication, date_trunc('month', issue_date)::date AS issue_month, count(*) AS prescriptions " +
+                    "FROM prescriptions GROUP BY 1, 2, 3 " +
+                    "UNION ALL " +
+                    "SELECT doctor_name, medication, issue_month, -prescriptions FROM prescription_stats_current) counts " +
+            "GROUP BY 1, 2, 3 HAVING sum(prescriptions) <> 0";
+    private static final String EXPIRY_STATS_DRIFT =
+            "SELECT valid_until, sum(prescriptions) AS drift FROM (" +
+                    "SELECT valid_until, count(*) AS prescriptions FROM prescriptions GROUP BY valid_until " +
+                    "UNION ALL " +
+                    "SELECT valid_until, -prescriptions FROM prescription_expiry_stats_current) counts " +
+            "GROUP BY 1 HAVING sum(prescriptions) <> 0";
+    private static final String ADD_STATS_DELTA =
+            "INSERT INTO prescription_stats_deltas (doctor_name, medication, issue_month, delta) VALUES (?, ?, ?, ?)";
+    private static final String ADD_EXPIRY_STATS_DELTA =
+            "INSERT INTO prescription_expiry_stats_deltas (valid_until, delta) VALUES (?, ?)";
+    // Two-key form, so the lock cannot collide with the per-patient locks taken by id.
+    private static final String LOCK_FOLD = "SELECT 1 FROM pg_advisory_xact_lock('prescription_stats'::regclass::oid::int, 0)";
+    private static final String FOLD_STATS =
+            "WITH folded AS (DELETE FROM prescription_stats_deltas RETURNING doctor_name, medication, issue_month, delta), " +
+            "applied AS (INSERT INTO prescription_stats AS s (doctor_name, medication, issue_month, prescriptions) " +
+                    "SELECT doctor_name, medication, issue_month, sum(delta) FROM folded " +
+                    "GROUP BY 1, 2, 3 HAVING sum(delta) <> 0 ORDER BY 1, 2, 3 " +
+                    "ON CONFLICT (doctor_name, medication, issue_month) " +
+                    "DO UPDATE SET prescriptions = s.prescriptions + EXCLUDED.prescriptions) " +
+            "SELECT count(*) FROM folded";
+    private static final String FOLD_EXPIRY_STATS =
+            "WITH folded AS (DELETE FROM prescription_expiry_stats_deltas RETURNING valid_until, delta), " +
+            "applied AS (INSERT INTO prescription_expiry_stats AS e (valid_until, prescriptions) " +
+                    "SELECT valid_until, sum(delta) FROM folded GROUP BY 1 HAVING sum(delta) <> 0 ORDER BY 1 " +
+                    "ON CONFLICT (valid_until) DO UPDATE SET prescriptions = e.prescriptions + EXCLUDED.prescriptions) " +
+            "SELECT count(*) FROM folded";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final Counter corrected;
+
+    public StatisticsRecomputeJob(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry){
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        // Not read-only: the drift has to be measured on the primary that the deltas are appended to.
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.corrected = Counter.builder("prescriptions.stats.corrected")
+                .description("Statistics groups whose count was corrected by the nightly recompute")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves the pending deltas into the rollups. Folds from several instances take turns, so they never delete the same
+     * deltas concurrently.
+     */
+    @Scheduled(fixedDelayString = "${prescriptions.stats.fold-interval:1m}")
+    public long fold(){
+        Long folded = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject(LOCK_FOLD, Integer.class);
+            return jdbcTemplate.queryForObject(FOLD_STATS, Long.class)
+                    + jdbcTemplate.queryForObject(FOLD_EXPIRY_STATS, Long.class);
+        });
+        log.debug("Folded {} statistics deltas", folded);
+        return folded;
+    }
+
+    @Scheduled(cron = "${prescriptions.stats.recompute-cron:0 0 3 * * *}")
+    public long recompute(){
+        Drift drift = snapshotTemplate.execute(status -> new Drift(
+                jdbcTemplate.query(STATS_DRIFT, (rs, rowNum) -> new Object[]{
+                        rs.getString("doctor_name"), rs.getString("medication"), rs.getDate("issue_month"), rs.getLong("drift")}),
+                jdbcTemplate.query(EXPIRY_STATS_DRIFT, (rs, rowNum) -> new Object[]{
+                        rs.getDate("valid_until"), rs.getLong("drift")})));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(ADD_STATS_DELTA, drift.stats());
+            jdbcTemplate.batchUpdate(ADD_EXPIRY_STATS_DELTA, drift.expiryStats());
+        });
+        fold();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM prescription_stats WHERE prescriptions = 0");
+            jdbcTemplate.update("DELETE FROM prescription_expiry_stats WHERE prescriptions = 0");
+        });
+        long drifted = drift.stats().size() + drift.expiryStats().size();
+        corrected.increment(drifted);
+        if (drifted > 0){
+            log.warn("Corrected {} drifted statistics rows", drifted);
+        } else {
+            log.info("Prescription statistics are consistent");
+        }
+        return drifted;
+    }
+
+    private record Drift(List<Object[]> stats, List<Object[]> expiryStats) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.prescriptions.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Records how many rows each repository finder returns. Query latency per finder comes from
+ * Spring Boot's {@code spring.data.repository.invocations} timer.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    public static final String RESULT_SIZE_SUMMARY = "prescriptions.repository.results";
+
+    private final MeterRegistry meterRegistry;
+
+    @AfterReturning(
+            pointcut = "execution(* com.example.prescriptions.repository.*Repository.find*(..))",
+            returning = "result")
+    public void recordResultSize(JoinPoint joinPoint, Object result) {
+        long size;
+        if (result instanceof Collection<?> collection) {
+            size = collection.size();
+        } else if (result instanceof Optional<?> optional) {
+            size = optional.isPresent() ? 1 : 0;
+        } else {
+            return;
+        }
+        DistributionSummary.builder(RESULT_SIZE_SUMMARY)
+                .description("Rows returned per repository query")
+                .baseUnit("rows")
+                .tag("repository", AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis())[0].getSimpleName())
+                .tag("query", joinPoint.getSignature().getName())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(size);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.prescriptions.metrics;
+
+import com.example.prescriptions.exception.ClinicalConflictException;
+import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.exception.ValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String SERVICE_TIMER = "prescriptions.service";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.example.prescriptions.service.impl.PrescriptionServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            outcome = outcome(ex);
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(SERVICE_TIMER)
+                    .description("PrescriptionService calls by method and outcome")
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(Throwable ex){
+        if (ex instanceof NotFoundException) {
+            return "not_found";
+        }
+        if (ex instanceof ValidationException) {
+            return "validation_error";
+        }
+        if (ex instanceof ClinicalConflictException) {
+            return "clinical_conflict";
+        }
+        if (ex instanceof PreconditionFailedException) {
+            return "precondition_failed";
+        }
+        if (ex instanceof OptimisticLockingFailureException) {
+            return "conflict";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.prescriptions.outbox;
+
+import com.example.prescriptions.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each event as one NDJSON line to a local file and forces it to disk before the batch is acknowledged.
+ */
+@Component
+@ConditionalOnProperty(name = "prescriptions.outbox.sink.file.path")
+@RequiredArgsConstructor
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${prescriptions.outbox.sink.file.path}")
+    private Path path;
+
+    @Override
+    public synchronized void deliver(List<OutboxEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            StringBuilder lines = new StringBuilder();
+            for (OutboxEvent event : events) {
+                ObjectNode line = objectMapper.createObjectNode()
+                        .put("id", event.getId())
+                        .put("type", event.getEventType())
+                        .put("aggregateId", event.getAggregateId())
+                        .put("createdAt", event.getCreatedAt().toString());
+                line.set("payload", objectMapper.readTree(event.getPayload()));
+                lines.append(objectMapper.writeValueAsString(line)).append('\n');
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            channel.force(false);
+        }
+    }
+}
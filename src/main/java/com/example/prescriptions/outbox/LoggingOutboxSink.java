@@ -0,0 +1,24 @@
+package com.example.prescriptions.outbox;
+
+import com.example.prescriptions.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "prescriptions.outbox.sink.log.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void deliver(List<OutboxEvent> events){
+        log.info("Relayed {} outbox events, ids {} to {}", events.size(), events.get(0).getId(),
+                events.get(events.size() - 1).getId());
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("{} {} {}", event.getEventType(), event.getAggregateId(),
+                    event.getPayload()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.prescriptions.outbox;
+
+import com.example.prescriptions.entity.OutboxEvent;
+import com.example.prescriptions.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the outbox and hands events to every {@link OutboxSink}. Each batch is claimed with
+ * {@code FOR UPDATE SKIP LOCKED}, delivered and deleted in one transaction, so several instances can relay in
+ * parallel and a failed delivery leaves the batch in place to be retried.
+ */
+@Component
+@ConditionalOnProperty(name = "prescriptions.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final DistributionSummary batchSizes;
+    private final Counter delivered;
+    private final Counter failures;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       ObjectProvider<OutboxSink> sinks,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${prescriptions.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${prescriptions.outbox.relay.max-batches-per-poll:20}") int maxBatchesPerPoll){
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.batchSizes = DistributionSummary.builder("prescriptions.outbox.batch.size")
+                .description("Events relayed per outbox batch")
+                .baseUnit("events")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("prescriptions.outbox.delivered")
+                .description("Outbox events delivered to all sinks")
+                .register(meterRegistry);
+        this.failures = Counter.builder("prescriptions.outbox.failures")
+                .description("Outbox batches that failed and will be retried")
+                .register(meterRegistry);
+        TimeGauge.builder("prescriptions.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest event in the last relayed batch")
+                .register(meterRegistry);
+        if (this.sinks.isEmpty()) {
+            log.warn("No outbox sinks configured, outbox events will accumulate until one is enabled");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${prescriptions.outbox.relay.poll-interval:500ms}")
+    public void relay(){
+        if (sinks.isEmpty()) {
+            return;
+        }
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            Integer relayed;
+            try {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("Outbox relay failed, the batch will be retried: {}", ex.getMessage());
+                return;
+            }
+            if (relayed == null || relayed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int relayBatch(){
+        List<OutboxEvent> events = outboxEventRepository.findBatchForDelivery(batchSize);
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(events.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(events);
+            } catch (Exception ex) {
+                throw new IllegalStateException(sink.getClass().getSimpleName() + " could not deliver events", ex);
+            }
+        }
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+
+        batchSizes.record(events.size());
+        delivered.increment(events.size());
+        return events.size();
+    }
+}
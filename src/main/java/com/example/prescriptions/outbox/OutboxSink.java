@@ -0,0 +1,14 @@
+package com.example.prescriptions.outbox;
+
+import com.example.prescriptions.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination for relayed outbox events. Events are delivered at least once and in id order within a batch; a
+ * batch is redelivered if any sink throws, so implementations should be idempotent on {@link OutboxEvent#getId()}.
+ */
+public interface OutboxSink {
+
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
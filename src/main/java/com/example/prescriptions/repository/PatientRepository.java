@@ -1,10 +1,27 @@
 package com.example.prescriptions.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.prescriptions.entity.Patient;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long>{
 
+    @Query("SELECT p.id FROM Patient p")
+    List<Long> findAllIds();
+
+    @Query("SELECT p.id FROM Patient p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Holds a transaction-scoped advisory lock keyed by the patient id, so prescription writes for one patient run
+     * their clinical check one at a time.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:patientId)", nativeQuery = true)
+    Integer lockForPrescriptionWrites(@Param("patientId") Long patientId);
 }
\ No newline at end of file
@@ -1,25 +1,154 @@
 package com.example.prescriptions.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import com.example.prescriptions.config.CacheConfiguration;
+import com.example.prescriptions.dto.PrescriptionSnapshot;
+import com.example.prescriptions.dto.PrescriptionVersion;
 import com.example.prescriptions.entity.Prescription;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 
 
 public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
 
-    List<Prescription> findByPatientId(Long patientId);
-    List<Prescription> findByDoctorName(String doctorName);
+    String SELECT_SNAPSHOT = "SELECT new com.example.prescriptions.dto.PrescriptionSnapshot(" +
+            "p.id, p.patientId, p.doctorName, p.medication, p.dosage, p.issueDate, p.validUntil, p.version) " +
+            "FROM Prescription p ";
 
-    @Query("SELECT p FROM Prescription p WHERE p.issueDate >= :startDate AND p.issueDate <= :endDate")
-    List<Prescription> findByIssueDateBetween(@Param("startDate") LocalDate startDate,
-                                                @Param("endDate") LocalDate endDate);
+    @Cacheable(cacheNames = CacheConfiguration.PRESCRIPTIONS_CACHE, sync = true)
+    @Query(SELECT_SNAPSHOT + "WHERE p.id = :id")
+    Optional<PrescriptionSnapshot> findSnapshotById(@Param("id") Long id);
 
+    @Query(SELECT_SNAPSHOT + "WHERE p.id IN :ids")
+    List<PrescriptionSnapshot> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT p FROM Prescription p WHERE p.patientId = :patientId AND p.doctorName = :doctorName")
-    List<Prescription> findByPatientIdAndDoctorName(@Param("patientId") Long patientId,
-                                                        @Param("doctorName") String doctorName);                                    
+    @Query(SELECT_SNAPSHOT + "WHERE p.patientId = :patientId")
+    List<PrescriptionSnapshot> findByPatientId(@Param("patientId") Long patientId);
+
+    /**
+     * The first {@code limit} prescriptions of each patient by id. Every patient is its own short range scan of
+     * {@code (patient_id, id)}, so one patient with a long history cannot inflate the result.
+     */
+    @Query(value = "SELECT p.* FROM patients pt CROSS JOIN LATERAL (" +
+            "SELECT * FROM prescriptions WHERE patient_id = pt.id ORDER BY id LIMIT :limit) p " +
+            "WHERE pt.id IN (:patientIds) ORDER BY p.patient_id, p.id", nativeQuery = true)
+    List<Prescription> findByPatientIdIn(@Param("patientIds") Collection<Long> patientIds, @Param("limit") int limit);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.doctorName = :doctorName")
+    List<PrescriptionSnapshot> findByDoctorName(@Param("doctorName") String doctorName);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.issueDate >= :startDate AND p.issueDate <= :endDate")
+    List<PrescriptionSnapshot> findByIssueDateBetween(@Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+
+    /**
+     * Ranks prefix matches first, then by trigram word similarity. {@code pattern} and {@code prefix} are the
+     * escaped query wrapped for ILIKE; {@code query <% column} adds misspelled matches.
+     */
+    @Query(value = "SELECT p.id FROM prescriptions p " +
+            "WHERE p.medication ILIKE :pattern OR p.doctor_name ILIKE :pattern " +
+            "OR :query <% p.medication OR :query <% p.doctor_name " +
+            "ORDER BY (p.medication ILIKE :prefix OR p.doctor_name ILIKE :prefix) DESC, " +
+            "GREATEST(word_similarity(:query, p.medication), word_similarity(:query, p.doctor_name)) DESC, p.id " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> searchIds(@Param("query") String query,
+                         @Param("pattern") String pattern,
+                         @Param("prefix") String prefix,
+                         @Param("limit") int limit,
+                         @Param("offset") int offset);
+
+    @Query("SELECT p.medication FROM Prescription p " +
+            "WHERE p.patientId = :patientId AND p.validUntil >= :today AND p.id <> :excludedId")
+    List<String> findActiveMedications(@Param("patientId") Long patientId,
+                                       @Param("today") LocalDate today,
+                                       @Param("excludedId") Long excludedId);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.patientId = :patientId AND p.doctorName = :doctorName")
+    List<PrescriptionSnapshot> findByPatientIdAndDoctorName(@Param("patientId") Long patientId,
+                                                            @Param("doctorName") String doctorName);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.patientId = :patientId AND p.id > :afterId ORDER BY p.id")
+    List<PrescriptionSnapshot> findPageByPatientId(@Param("patientId") Long patientId,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    @Query("SELECT new com.example.prescriptions.dto.PrescriptionVersion(p.id, p.version, p.validUntil) " +
+            "FROM Prescription p WHERE p.patientId = :patientId AND p.id > :afterId ORDER BY p.id")
+    List<PrescriptionVersion> findVersionPageByPatientId(@Param("patientId") Long patientId,
+                                                         @Param("afterId") Long afterId,
+                                                         Pageable pageable);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.doctorName = :doctorName AND p.id > :afterId ORDER BY p.id")
+    List<PrescriptionSnapshot> findPageByDoctorName(@Param("doctorName") String doctorName,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    @Query(SELECT_SNAPSHOT + "WHERE p.issueDate >= :startDate AND p.issueDate <= :endDate " +
+            "AND (p.issueDate > :afterDate OR (p.issueDate = :afterDate AND p.id > :afterId)) " +
+            "ORDER BY p.issueDate, p.id")
+    List<PrescriptionSnapshot> findPageByIssueDateBetween(@Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate,
+                                                          @Param("afterDate") LocalDate afterDate,
+                                                          @Param("afterId") Long afterId,
+                                                          Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_SNAPSHOT + "WHERE p.issueDate >= :startDate AND p.issueDate <= :endDate " +
+            "ORDER BY p.issueDate, p.id")
+    Stream<PrescriptionSnapshot> streamByIssueDateBetween(@Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("UPDATE Prescription p SET p.patientId = :patientId, p.doctorName = :doctorName, " +
+            "p.medication = :medication, p.dosage = :dosage, p.issueDate = :issueDate, " +
+            "p.validUntil = :validUntil, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id,
+                               @Param("version") Long version,
+                               @Param("patientId") Long patientId,
+                               @Param("doctorName") String doctorName,
+                               @Param("medication") String medication,
+                               @Param("dosage") String dosage,
+                               @Param("issueDate") LocalDate issueDate,
+                               @Param("validUntil") LocalDate validUntil);
+
+    @Modifying
+    @Query("DELETE FROM Prescription p WHERE p.id = :id")
+    int deleteDirectlyById(@Param("id") Long id);
+
+    @Query(value = "DELETE FROM prescriptions WHERE id IN (:ids) RETURNING id", nativeQuery = true)
+    List<Long> deleteAllByIdReturningIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "DELETE FROM prescriptions WHERE id IN (" +
+            "SELECT id FROM prescriptions WHERE valid_until < :cutoff ORDER BY valid_until, id LIMIT :limit) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> deleteExpiredBefore(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    @Query(value = "WITH moved AS (" +
+            "DELETE FROM prescriptions p USING (" +
+            "SELECT id, issue_date FROM prescriptions WHERE valid_until < :cutoff " +
+            "ORDER BY valid_until, id LIMIT :limit FOR UPDATE SKIP LOCKED) expired " +
+            "WHERE p.id = expired.id AND p.issue_date = expired.issue_date " +
+            "RETURNING p.*) " +
+            "INSERT INTO prescriptions_archive " +
+            "(id, patient_id, doctor_name, medication, dosage, issue_date, valid_until, version, archived_at) " +
+            "SELECT id, patient_id, doctor_name, medication, dosage, issue_date, valid_until, version, now() " +
+            "FROM moved RETURNING id", nativeQuery = true)
+    List<Long> archiveExpiredBefore(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
 }
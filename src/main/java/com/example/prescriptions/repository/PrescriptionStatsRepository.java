@@ -0,0 +1,41 @@
+package com.example.prescriptions.repository;
+
+import com.example.prescriptions.dto.MonthlyPrescriptionCount;
+import com.example.prescriptions.dto.PrescriptionCount;
+import com.example.prescriptions.entity.PrescriptionStats;
+import com.example.prescriptions.entity.PrescriptionStatsId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PrescriptionStatsRepository extends JpaRepository<PrescriptionStats, PrescriptionStatsId> {
+
+    @Query("SELECT new com.example.prescriptions.dto.PrescriptionCount(s.doctorName, SUM(s.prescriptions)) " +
+            "FROM PrescriptionStats s WHERE s.issueMonth BETWEEN :from AND :to " +
+            "GROUP BY s.doctorName HAVING SUM(s.prescriptions) > 0 " +
+            "ORDER BY SUM(s.prescriptions) DESC, s.doctorName")
+    List<PrescriptionCount> countByDoctor(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query("SELECT new com.example.prescriptions.dto.PrescriptionCount(s.medication, SUM(s.prescriptions)) " +
+            "FROM PrescriptionStats s WHERE s.issueMonth BETWEEN :from AND :to " +
+            "GROUP BY s.medication HAVING SUM(s.prescriptions) > 0 " +
+            "ORDER BY SUM(s.prescriptions) DESC, s.medication")
+    List<PrescriptionCount> countByMedication(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query("SELECT new com.example.prescriptions.dto.MonthlyPrescriptionCount(s.issueMonth, SUM(s.prescriptions)) " +
+            "FROM PrescriptionStats s WHERE s.issueMonth BETWEEN :from AND :to " +
+            "GROUP BY s.issueMonth ORDER BY s.issueMonth")
+    List<MonthlyPrescriptionCount> countByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(e.prescriptions), 0) FROM PrescriptionExpiryStats e")
+    long countAll();
+
+    @Query("SELECT COALESCE(SUM(e.prescriptions), 0) FROM PrescriptionExpiryStats e WHERE e.validUntil >= :today")
+    long countValidOn(@Param("today") LocalDate today);
+}
@@ -1,24 +1,63 @@
 package com.example.prescriptions.service;
 
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.ExportFormat;
+import com.example.prescriptions.dto.LookupRequestDto;
+import com.example.prescriptions.dto.LookupResponseDto;
+import com.example.prescriptions.dto.PrescriptionPatchDto;
 import com.example.prescriptions.dto.PrescriptionRequestDto;
 import com.example.prescriptions.dto.PrescriptionResponseDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 
 public interface PrescriptionService {
 
+    int MAX_BATCH_ITEMS = 50_000;
+    int MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT = 100;
+
     PrescriptionResponseDto create(PrescriptionRequestDto dto);
 
+    BatchCreateResponseDto createBatch(List<PrescriptionRequestDto> dtos);
+
     PrescriptionResponseDto getById(Long id);
 
+    String getVersionTag(Long id);
+
     List<PrescriptionResponseDto> getByPatientId(Long patientId);
 
+    CursorPageResponseDto<PrescriptionResponseDto> getByPatientId(Long patientId, String cursor, Integer size);
+
+    String getPatientPageVersionTag(Long patientId, String cursor, Integer size);
+
+    LookupResponseDto lookup(LookupRequestDto dto);
+
+    CursorPageResponseDto<PrescriptionResponseDto> search(String query, String cursor, Integer size);
+
     PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto);
 
+    PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto, Long expectedVersion);
+
+    PrescriptionResponseDto patch(Long id, PrescriptionPatchDto dto, Long expectedVersion);
+
     void delete(Long id);
 
+    long deleteByIds(List<Long> ids);
+
+    long purgeExpiredBefore(LocalDate cutoff);
+
     List<PrescriptionResponseDto> getByDoctorName(String doctorName);
 
+    CursorPageResponseDto<PrescriptionResponseDto> getByDoctorName(String doctorName, String cursor, Integer size);
+
     List<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate);
+
+    CursorPageResponseDto<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate,
+                                                                  String cursor, Integer size);
+
+    void exportByDateRange(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                           OutputStream outputStream) throws IOException;
 }
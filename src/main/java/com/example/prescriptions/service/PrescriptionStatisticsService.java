@@ -0,0 +1,10 @@
+package com.example.prescriptions.service;
+
+import com.example.prescriptions.dto.PrescriptionStatisticsDto;
+
+import java.time.YearMonth;
+
+public interface PrescriptionStatisticsService {
+
+    PrescriptionStatisticsDto getStatistics(YearMonth from, YearMonth to, Integer limit);
+}
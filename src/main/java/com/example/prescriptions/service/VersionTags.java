@@ -0,0 +1,89 @@
+package com.example.prescriptions.service;
+
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.dto.PrescriptionVersion;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Builds the entity tags for prescription reads. A tag covers the row version and whether the prescription has
+ * expired, because {@code isExpired} changes with the date while the version does not. Page tags hash those of every
+ * item plus {@code hasMore}, so they can be computed from a version-only query before the page itself is loaded.
+ */
+public final class VersionTags {
+
+    private static final String EXPIRED = "-expired";
+    private static final String ACTIVE = "-active";
+
+    private VersionTags() {
+    }
+
+    public static String of(Long version, LocalDate validUntil) {
+        return version + (LocalDate.now().isAfter(validUntil) ? EXPIRED : ACTIVE);
+    }
+
+    public static String of(PrescriptionResponseDto prescription) {
+        return prescription.getVersion() + (Boolean.TRUE.equals(prescription.getIsExpired()) ? EXPIRED : ACTIVE);
+    }
+
+    public static String ofPage(List<PrescriptionVersion> rows, int pageSize) {
+        PageDigest digest = new PageDigest();
+        LocalDate today = LocalDate.now();
+        rows.stream()
+                .limit(pageSize)
+                .forEach(row -> digest.add(row.getId(), row.getVersion(), today.isAfter(row.getValidUntil())));
+        return digest.finish(rows.size() > pageSize);
+    }
+
+    public static String ofPage(CursorPageResponseDto<PrescriptionResponseDto> page) {
+        PageDigest digest = new PageDigest();
+        page.getItems().forEach(item ->
+                digest.add(item.getId(), item.getVersion(), Boolean.TRUE.equals(item.getIsExpired())));
+        return digest.finish(page.isHasMore());
+    }
+
+    /**
+     * Returns the version a tag was built from, accepting weak and quoted forms.
+     *
+     * @throws NumberFormatException if the tag was not produced by {@link #of}
+     */
+    public static long parseVersion(String tag) {
+        String value = tag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        int separator = value.indexOf('-');
+        return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+    }
+
+    private static final class PageDigest {
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES + 1);
+
+        private PageDigest() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void add(Long id, Long version, boolean expired) {
+            buffer.clear();
+            buffer.putLong(id).putLong(version).put((byte) (expired ? 1 : 0));
+            digest.update(buffer.array());
+        }
+
+        private String finish(boolean hasMore) {
+            digest.update((byte) (hasMore ? 1 : 0));
+            return "p-" + HexFormat.of().formatHex(digest.digest(), 0, 16);
+        }
+    }
+}
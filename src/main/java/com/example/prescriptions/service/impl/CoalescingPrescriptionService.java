@@ -0,0 +1,202 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.ExportFormat;
+import com.example.prescriptions.dto.LookupRequestDto;
+import com.example.prescriptions.dto.LookupResponseDto;
+import com.example.prescriptions.dto.PrescriptionPatchDto;
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.service.PrescriptionService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Shares one database query between concurrent identical reads, e.g. many terminals opening the same patient at once.
+ * Writes and exports go straight to {@link PrescriptionServiceImpl}. Coalesced callers receive the same result
+ * instance, which is only ever serialised.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "prescriptions.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingPrescriptionService implements PrescriptionService {
+
+    public static final String COALESCING_CALLS = "prescriptions.coalescing.calls";
+
+    private final PrescriptionServiceImpl delegate;
+    private final SingleFlight<Long, PrescriptionResponseDto> byId = new SingleFlight<>();
+    private final SingleFlight<List<Object>, Object> byPatientId = new SingleFlight<>();
+    private final SingleFlight<List<Object>, Object> byDoctorName = new SingleFlight<>();
+    private final SingleFlight<List<Object>, Object> byDateRange = new SingleFlight<>();
+
+    public CoalescingPrescriptionService(PrescriptionServiceImpl delegate, MeterRegistry meterRegistry){
+        this.delegate = delegate;
+        register(meterRegistry, "getById", byId);
+        register(meterRegistry, "getByPatientId", byPatientId);
+        register(meterRegistry, "getByDoctorName", byDoctorName);
+        register(meterRegistry, "getByDateRange", byDateRange);
+    }
+
+    @Override
+    public PrescriptionResponseDto create(PrescriptionRequestDto dto){
+        return afterWrite(delegate.create(dto));
+    }
+
+    @Override
+    public BatchCreateResponseDto createBatch(List<PrescriptionRequestDto> dtos){
+        return afterWrite(delegate.createBatch(dtos));
+    }
+
+    @Override
+    public PrescriptionResponseDto getById(Long id){
+        return byId.execute(id, () -> delegate.getById(id));
+    }
+
+    @Override
+    public String getVersionTag(Long id){
+        return delegate.getVersionTag(id);
+    }
+
+    @Override
+    public List<PrescriptionResponseDto> getByPatientId(Long patientId){
+        return read(byPatientId, key(patientId), () -> delegate.getByPatientId(patientId));
+    }
+
+    @Override
+    public CursorPageResponseDto<PrescriptionResponseDto> getByPatientId(Long patientId, String cursor, Integer size){
+        return read(byPatientId, key(patientId, cursor, size),
+                () -> delegate.getByPatientId(patientId, cursor, size));
+    }
+
+    @Override
+    public String getPatientPageVersionTag(Long patientId, String cursor, Integer size){
+        return delegate.getPatientPageVersionTag(patientId, cursor, size);
+    }
+
+    @Override
+    public LookupResponseDto lookup(LookupRequestDto dto){
+        return delegate.lookup(dto);
+    }
+
+    @Override
+    public CursorPageResponseDto<PrescriptionResponseDto> search(String query, String cursor, Integer size){
+        return delegate.search(query, cursor, size);
+    }
+
+    @Override
+    public PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto){
+        return afterWrite(delegate.update(id, dto));
+    }
+
+    @Override
+    public PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto, Long expectedVersion){
+        return afterWrite(delegate.update(id, dto, expectedVersion));
+    }
+
+    @Override
+    public PrescriptionResponseDto patch(Long id, PrescriptionPatchDto dto, Long expectedVersion){
+        return afterWrite(delegate.patch(id, dto, expectedVersion));
+    }
+
+    @Override
+    public void delete(Long id){
+        delegate.delete(id);
+        afterWrite(null);
+    }
+
+    @Override
+    public long deleteByIds(List<Long> ids){
+        return afterWrite(delegate.deleteByIds(ids));
+    }
+
+    @Override
+    public long purgeExpiredBefore(LocalDate cutoff){
+        return afterWrite(delegate.purgeExpiredBefore(cutoff));
+    }
+
+    @Override
+    public List<PrescriptionResponseDto> getByDoctorName(String doctorName){
+        return read(byDoctorName, key(doctorName), () -> delegate.getByDoctorName(doctorName));
+    }
+
+    @Override
+    public CursorPageResponseDto<PrescriptionResponseDto> getByDoctorName(String doctorName, String cursor, Integer size){
+        return read(byDoctorName, key(doctorName, cursor, size),
+                () -> delegate.getByDoctorName(doctorName, cursor, size));
+    }
+
+    @Override
+    public List<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate){
+        return read(byDateRange, key(startDate, endDate), () -> delegate.getByDateRange(startDate, endDate));
+    }
+
+    @Override
+    public CursorPageResponseDto<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate,
+                                                                         String cursor, Integer size){
+        return read(byDateRange, key(startDate, endDate, cursor, size),
+                () -> delegate.getByDateRange(startDate, endDate, cursor, size));
+    }
+
+    @Override
+    public void exportByDateRange(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                                  OutputStream outputStream) throws IOException {
+        delegate.exportByDateRange(startDate, endDate, format, outputStream);
+    }
+
+    /**
+     * A client reading back its own write must not join a query that may have started before the write committed.
+     * Writes through this instance invalidate every flight once committed, whether or not replica routing is on.
+     */
+    private <T> T afterWrite(T result){
+        byId.invalidate();
+        byPatientId.invalidate();
+        byDoctorName.invalidate();
+        byDateRange.invalidate();
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T read(SingleFlight<List<Object>, Object> flight, List<Object> key, Supplier<T> query){
+        if (ReplicaRoutingDataSource.isPinnedToPrimary()){
+            return query.get();
+        }
+        return (T) flight.execute(key, query::get);
+    }
+
+    /**
+     * Keys include the arity, so the list and page variants of a method never share a result.
+     */
+    private static List<Object> key(Object... arguments){
+        return Arrays.asList(arguments);
+    }
+
+    private static void register(MeterRegistry meterRegistry, String method, SingleFlight<?, ?> flight){
+        FunctionCounter.builder(COALESCING_CALLS, flight, SingleFlight::executedCount)
+                .description("Reads that ran their own query")
+                .tag("method", method)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder(COALESCING_CALLS, flight, SingleFlight::sharedCount)
+                .description("Reads that joined an identical query already in flight")
+                .tag("method", method)
+                .tag("result", "shared")
+                .register(meterRegistry);
+        Gauge.builder("prescriptions.coalescing.in.flight", flight, SingleFlight::inFlightCount)
+                .description("Distinct reads currently running")
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.prescriptions.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Known drug interactions, loaded from a CSV of {@code medication,medication} pairs. Medication names are interned to
+ * dense ids and each medication keeps a {@link BitSet} of the ids it interacts with, so a check is a few hash lookups
+ * and bit tests. When the file is on disk, it is polled and swapped in atomically whenever it changes.
+ */
+@Component
+@Slf4j
+public class InteractionMatrix {
+
+    public static final String DUPLICATE_THERAPY = "duplicate therapy";
+    public static final String INTERACTION = "interaction";
+
+    private final Resource location;
+    private final Counter reloads;
+    private volatile Matrix matrix;
+    private volatile long lastModified;
+
+    public InteractionMatrix(@Value("${prescriptions.interactions.location:classpath:interactions.csv}") Resource location,
+                             MeterRegistry meterRegistry){
+        this.location = location;
+        this.lastModified = lastModified(location);
+        this.matrix = load(location);
+        this.reloads = Counter.builder("prescriptions.interactions.reloads")
+                .description("Times the interaction file was reloaded after it changed")
+                .register(meterRegistry);
+        Gauge.builder("prescriptions.interactions.medications", this, InteractionMatrix::size)
+                .description("Medications known to the interaction matrix")
+                .register(meterRegistry);
+        log.info("Interaction matrix loaded with {} medications from {}", size(), location);
+    }
+
+    /**
+     * Returns each active medication that conflicts with {@code medication}, mapped to {@link #DUPLICATE_THERAPY} or
+     * {@link #INTERACTION}. Empty when there is no conflict.
+     */
+    public Map<String, String> conflicts(String medication, Collection<String> activeMedications){
+        Matrix current = matrix;
+        String name = normalize(medication);
+        BitSet interactions = current.interactionsOf(name);
+        Map<String, String> conflicts = new LinkedHashMap<>();
+        for (String active : activeMedications){
+            String activeName = normalize(active);
+            if (activeName.equals(name)){
+                conflicts.put(active, DUPLICATE_THERAPY);
+            } else if (interactions != null){
+                Integer activeId = current.ids.get(activeName);
+                if (activeId != null && interactions.get(activeId)){
+                    conflicts.put(active, INTERACTION);
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    public int size(){
+        return matrix.ids.size();
+    }
+
+    @Scheduled(fixedDelayString = "${prescriptions.interactions.reload-interval:30s}",
+            initialDelayString = "${prescriptions.interactions.reload-interval:30s}")
+    public void reloadIfChanged(){
+        long modified = lastModified(location);
+        if (modified <= lastModified){
+            return;
+        }
+        lastModified = modified;
+        try {
+            matrix = load(location);
+            reloads.increment();
+            log.info("Interaction matrix reloaded with {} medications", size());
+        } catch (RuntimeException ex) {
+            log.warn("Keeping the previous interaction matrix, reloading {} failed", location, ex);
+        }
+    }
+
+    private static Matrix load(Resource location){
+        Map<String, Integer> ids = new HashMap<>();
+        List<BitSet> adjacency = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null){
+                lineNumber++;
+                String pair = line.strip();
+                if (pair.isEmpty() || pair.startsWith("#")){
+                    continue;
+                }
+                String[] medications = pair.split(",");
+                if (medications.length != 2 || medications[0].isBlank() || medications[1].isBlank()){
+                    throw new IllegalStateException(String.format("Invalid interaction at %s line %d: %s",
+                            location, lineNumber, line));
+                }
+                int first = intern(normalize(medications[0]), ids, adjacency);
+                int second = intern(normalize(medications[1]), ids, adjacency);
+                adjacency.get(first).set(second);
+                adjacency.get(second).set(first);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read interactions from " + location, ex);
+        }
+        return new Matrix(Map.copyOf(ids), adjacency.toArray(new BitSet[0]));
+    }
+
+    private static int intern(String medication, Map<String, Integer> ids, List<BitSet> adjacency){
+        return ids.computeIfAbsent(medication, name -> {
+            adjacency.add(new BitSet());
+            return adjacency.size() - 1;
+        });
+    }
+
+    private static String normalize(String medication){
+        return medication.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static long lastModified(Resource location){
+        try {
+            return location.isFile() ? location.lastModified() : 0L;
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+
+    record Matrix(Map<String, Integer> ids, BitSet[] adjacency){
+
+        BitSet interactionsOf(String medication){
+            Integer id = ids.get(medication);
+            return id == null ? null : adjacency[id];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.exception.ValidationException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+@Getter
+public final class PageCursor {
+    private static final String SEPARATOR = "|";
+    private static final String SEARCH_PREFIX = "search:";
+
+    private final LocalDate issueDate;
+    private final long id;
+
+    private PageCursor(LocalDate issueDate, long id){
+        this.issueDate = issueDate;
+        this.id = id;
+    }
+
+    public static String encode(long id){
+        return encodeToken(Long.toString(id));
+    }
+
+    public static String encode(LocalDate issueDate, long id){
+        return encodeToken(issueDate + SEPARATOR + id);
+    }
+
+    /**
+     * Search cursors carry a fingerprint of the query they page through, so they cannot be replayed against another.
+     */
+    public static String encodeSearch(String query, long offset){
+        return encodeToken(SEARCH_PREFIX + fingerprint(query) + SEPARATOR + offset);
+    }
+
+    public static long decodeSearchOffset(String token, String query){
+        String value = decodeToken(token);
+        if (!value.startsWith(SEARCH_PREFIX)){
+            throw new ValidationException("Invalid page cursor");
+        }
+        String expected = SEARCH_PREFIX + fingerprint(query) + SEPARATOR;
+        if (!value.startsWith(expected)){
+            throw new ValidationException("Page cursor was issued for a different search query");
+        }
+        try {
+            return Long.parseLong(value.substring(expected.length()));
+        } catch (NumberFormatException ex){
+            throw new ValidationException("Invalid page cursor");
+        }
+    }
+
+    public static PageCursor decode(String token){
+        String value = decodeToken(token);
+        try {
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0){
+                return new PageCursor(null, Long.parseLong(value));
+            }
+            return new PageCursor(LocalDate.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex){
+            throw new ValidationException("Invalid page cursor");
+        }
+    }
+
+    public static PageCursor decodeWithDate(String token){
+        PageCursor cursor = decode(token);
+        if (cursor.getIssueDate() == null){
+            throw new ValidationException("Invalid page cursor");
+        }
+        return cursor;
+    }
+
+    private static String decodeToken(String token){
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex){
+            throw new ValidationException("Invalid page cursor");
+        }
+    }
+
+    private static String fingerprint(String query){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException ex){
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String encodeToken(String value){
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Slf4j
+public class PatientExistenceIndex {
+    private final PatientRepository patientRepository;
+    private final BitSet patientIds = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter hits;
+    private final Counter misses;
+
+    public PatientExistenceIndex(PatientRepository patientRepository, MeterRegistry meterRegistry){
+        this.patientRepository = patientRepository;
+        this.hits = Counter.builder("prescriptions.patient.index.lookups")
+                .description("Patient existence checks answered by the in-memory index, each one a saved query")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("prescriptions.patient.index.lookups")
+                .description("Patient existence checks that fell back to the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("prescriptions.patient.index.size", this, PatientExistenceIndex::size)
+                .description("Number of patient ids held by the index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp(){
+        List<Long> ids = patientRepository.findAllIds();
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::set);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Patient existence index warmed with {} patients", ids.size());
+    }
+
+    public boolean contains(Long patientId){
+        boolean found = false;
+        if (isIndexable(patientId)){
+            lock.readLock().lock();
+            try {
+                found = patientIds.get(patientId.intValue());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    public void add(Long patientId){
+        lock.writeLock().lock();
+        try {
+            set(patientId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long patientId){
+        if (!isIndexable(patientId)){
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            patientIds.clear(patientId.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int size(){
+        lock.readLock().lock();
+        try {
+            return patientIds.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void set(Long patientId){
+        if (isIndexable(patientId)){
+            patientIds.set(patientId.intValue());
+        }
+    }
+
+    private static boolean isIndexable(Long patientId){
+        return patientId != null && patientId >= 0 && patientId <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.dto.ExportFormat;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+abstract class PrescriptionExportWriter implements Closeable {
+
+    static PrescriptionExportWriter create(ExportFormat format, OutputStream outputStream, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(outputStream, objectMapper);
+            case CSV -> new CsvWriter(outputStream);
+        };
+    }
+
+    abstract void write(PrescriptionResponseDto prescription) throws IOException;
+
+    private static final class NdjsonWriter extends PrescriptionExportWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter objectWriter;
+        private boolean empty = true;
+
+        private NdjsonWriter(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(outputStream);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+            this.objectWriter = objectMapper.writerFor(PrescriptionResponseDto.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        void write(PrescriptionResponseDto prescription) throws IOException {
+            objectWriter.writeValue(generator, prescription);
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!empty){
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter extends PrescriptionExportWriter {
+        private static final String HEADER = "id,patientId,doctorName,medication,dosage,issueDate,validUntil,isExpired";
+
+        private final Writer writer;
+
+        private CsvWriter(OutputStream outputStream) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            this.writer.write(HEADER);
+            this.writer.write('\n');
+        }
+
+        @Override
+        void write(PrescriptionResponseDto prescription) throws IOException {
+            writer.write(String.valueOf(prescription.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(prescription.getPatientId()));
+            writer.write(',');
+            writeField(prescription.getDoctorName());
+            writer.write(',');
+            writeField(prescription.getMedication());
+            writer.write(',');
+            writeField(prescription.getDosage());
+            writer.write(',');
+            writer.write(prescription.getIssueDate().toString());
+            writer.write(',');
+            writer.write(prescription.getValidUntil().toString());
+            writer.write(',');
+            writer.write(String.valueOf(prescription.getIsExpired()));
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0){
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -1,52 +1,102 @@
 package com.example.prescriptions.service.impl;
 
 
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.BatchItemResultDto;
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.ExportFormat;
+import com.example.prescriptions.dto.LookupRequestDto;
+import com.example.prescriptions.dto.LookupResponseDto;
+import com.example.prescriptions.dto.PrescriptionPatchDto;
 import com.example.prescriptions.dto.PrescriptionRequestDto;
 import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.dto.PrescriptionSnapshot;
+import com.example.prescriptions.dto.PrescriptionVersion;
 import com.example.prescriptions.entity.Prescription;
 import com.example.prescriptions.event.PrescriptionCreatedEvent;
+import com.example.prescriptions.event.PrescriptionDeletedEvent;
+import com.example.prescriptions.event.PrescriptionUpdatedEvent;
+import com.example.prescriptions.event.PrescriptionsDeletedEvent;
+import com.example.prescriptions.event.PrescriptionsBatchCreatedEvent;
+import com.example.prescriptions.exception.ClinicalConflictException;
 import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
 import com.example.prescriptions.exception.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import com.example.prescriptions.repository.PatientRepository;
 import com.example.prescriptions.repository.PrescriptionRepository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.example.prescriptions.service.PrescriptionService;
+import com.example.prescriptions.service.VersionTags;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class PrescriptionServiceImpl implements PrescriptionService {
+    public static final int BATCH_CHUNK_SIZE = 500;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    public static final int PURGE_CHUNK_SIZE = 1_000;
+    static final int MIN_SEARCH_LENGTH = 3;
+    static final int MAX_SEARCH_OFFSET = 10_000;
+    private static final int PATIENT_LOOKUP_CHUNK_SIZE = 1_000;
+
     private final PrescriptionRepository prescriptionRepository;
     private final PatientRepository patientRepository;
+    private final PatientExistenceIndex patientExistenceIndex;
+    private final InteractionMatrix interactionMatrix;
     private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public PrescriptionResponseDto create(PrescriptionRequestDto dto ){
-        log.info("Creating prescription for patient Id: {}", dto.getPatientId());
+        log.debug("Creating prescription for patient Id: {}", dto.getPatientId());
 
         validatePatientExists(dto.getPatientId());
         validateDates(dto.getIssueDate(), dto.getValidUntil());
+        patientRepository.lockForPrescriptionWrites(dto.getPatientId());
+        checkClinicalConflicts(dto.getPatientId(), dto.getMedication(), dto.getValidUntil(), null);
 
-        Prescription prescription = Prescription.builder()
-                .patientId(dto.getPatientId())
-                .doctorName(dto.getDoctorName())
-                .medication(dto.getMedication())
-                .dosage(dto.getDosage())
-                .issueDate(dto.getIssueDate())
-                .validUntil(dto.getValidUntil())
-                .build();
-
-        Prescription savedPrescription = prescriptionRepository.save(prescription);
-        log.info("Prescription created with Id: {}", savedPrescription.getId());
+        Prescription savedPrescription = prescriptionRepository.save(toEntity(dto));
+        log.info("Prescription created {} {}", kv("prescriptionId", savedPrescription.getId()),
+                kv("patientId", savedPrescription.getPatientId()));
 
         PrescriptionResponseDto responseDto = toResponseDto(savedPrescription);
 
@@ -55,106 +105,743 @@ public class PrescriptionServiceImpl implements PrescriptionService {
         return responseDto;
     }
 
+    /**
+     * Commits every chunk in its own transaction so a large batch neither holds one transaction open for its whole
+     * run nor loses the chunks already written when a later one fails.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchCreateResponseDto createBatch(List<PrescriptionRequestDto> dtos){
+        log.debug("Creating batch of {} prescriptions", dtos.size());
+
+        if (dtos.size() > MAX_BATCH_ITEMS){
+            throw new ValidationException(String.format("Batch must not contain more than %d prescriptions", MAX_BATCH_ITEMS));
+        }
+
+        Set<Long> existingPatientIds = findExistingPatientIds(dtos);
+        BatchItemResultDto[] results = new BatchItemResultDto[dtos.size()];
+        List<Prescription> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(BATCH_CHUNK_SIZE);
+        int created = 0;
+
+        for (int i = 0; i < dtos.size(); i++){
+            PrescriptionRequestDto dto = dtos.get(i);
+            String error = validateBatchItem(dto, existingPatientIds);
+            if (error != null){
+                results[i] = BatchItemResultDto.builder()
+                        .index(i)
+                        .status(BatchItemResultDto.Status.FAILED)
+                        .error(error)
+                        .build();
+                continue;
+            }
+
+            chunk.add(toEntity(dto));
+            chunkIndexes.add(i);
+            if (chunk.size() == BATCH_CHUNK_SIZE){
+                created += saveChunk(chunk, chunkIndexes, results);
+            }
+        }
+        if (!chunk.isEmpty()){
+            created += saveChunk(chunk, chunkIndexes, results);
+        }
+        log.info("Prescription batch created {} {}", kv("created", created), kv("total", dtos.size()));
+
+        return BatchCreateResponseDto.builder()
+                .total(dtos.size())
+                .created(created)
+                .failed(dtos.size() - created)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
 
     @Override
     @Transactional(readOnly = true)
     public PrescriptionResponseDto getById(Long id){
-        log.info("Fetching prescription with ID: {}", id);
+        log.debug("Fetching prescription with ID: {}", id);
 
-        Prescription prescription = prescriptionRepository.findById(id)
+        PrescriptionSnapshot prescription = findCachedSnapshot(id)
                 .orElseThrow(()-> new NotFoundException("Prescription", id));
         return toResponseDto(prescription);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getVersionTag(Long id){
+        PrescriptionSnapshot prescription = findCachedSnapshot(id)
+                .orElseThrow(()-> new NotFoundException("Prescription", id));
+        return VersionTags.of(prescription.getVersion(), prescription.getValidUntil());
+    }
+
+    /**
+     * Cache misses read the primary, so a lagging replica cannot re-cache a value that a write has just evicted.
+     */
+    private Optional<PrescriptionSnapshot> findCachedSnapshot(Long id){
+        return ReplicaRoutingDataSource.onPrimary(() -> prescriptionRepository.findSnapshotById(id));
+    }
 
     @Override
     @Transactional(readOnly = true)
     public List<PrescriptionResponseDto> getByPatientId(Long patientId){
-        log.info("Fetching all prescription for patient Id: {}", patientId);
+        log.debug("Fetching all prescription for patient Id: {}", patientId);
 
-        List<Prescription> prescriptions = prescriptionRepository.findByPatientId(patientId);
+        List<PrescriptionSnapshot> prescriptions = prescriptionRepository.findByPatientId(patientId);
 
         return prescriptions.stream()
-                .map(this::toResponseDto)
+                .map(PrescriptionServiceImpl::toResponseDto)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<PrescriptionResponseDto> getByPatientId(Long patientId, String cursor, Integer size){
+        log.debug("Fetching prescription page for patient Id: {}", patientId);
+
+        int pageSize = resolvePageSize(size);
+        long afterId = cursor == null ? 0L : PageCursor.decode(cursor).getId();
+
+        List<PrescriptionSnapshot> prescriptions = prescriptionRepository.findPageByPatientId(
+                patientId, afterId, PageRequest.of(0, pageSize + 1));
+
+        return toPage(prescriptions, pageSize, prescription -> PageCursor.encode(prescription.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getPatientPageVersionTag(Long patientId, String cursor, Integer size){
+        int pageSize = resolvePageSize(size);
+        long afterId = cursor == null ? 0L : PageCursor.decode(cursor).getId();
+
+        List<PrescriptionVersion> versions = prescriptionRepository.findVersionPageByPatientId(
+                patientId, afterId, PageRequest.of(0, pageSize + 1));
+
+        return VersionTags.ofPage(versions, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LookupResponseDto lookup(LookupRequestDto dto){
+        Set<Long> ids = distinctIds(dto.getIds());
+        Set<Long> patientIds = distinctIds(dto.getPatientIds());
+        if (ids.isEmpty() && patientIds.isEmpty()){
+            throw new ValidationException("At least one prescription ID or patient ID is required");
+        }
+        log.debug("Looking up {} prescriptions and {} patients", ids.size(), patientIds.size());
+
+        Map<Long, PrescriptionResponseDto> prescriptions = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        if (!ids.isEmpty()){
+            Map<Long, PrescriptionResponseDto> found = prescriptionRepository.findSnapshotsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(PrescriptionSnapshot::getId, PrescriptionServiceImpl::toResponseDto));
+            for (Long id : ids){
+                PrescriptionResponseDto prescription = found.get(id);
+                if (prescription == null){
+                    missingIds.add(id);
+                } else {
+                    prescriptions.put(id, prescription);
+                }
+            }
+        }
+
+        Map<Long, List<PrescriptionResponseDto>> patients = new LinkedHashMap<>();
+        List<Long> missingPatientIds = new ArrayList<>();
+        List<Long> truncatedPatientIds = new ArrayList<>();
+        if (!patientIds.isEmpty()){
+            // One row past the cap tells which patients were cut off.
+            Map<Long, List<PrescriptionResponseDto>> found = prescriptionRepository
+                    .findByPatientIdIn(patientIds, MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT + 1).stream()
+                    .collect(Collectors.groupingBy(Prescription::getPatientId,
+                            Collectors.mapping(PrescriptionServiceImpl::toResponseDto, Collectors.toList())));
+            List<Long> withoutPrescriptions = patientIds.stream()
+                    .filter(patientId -> !found.containsKey(patientId))
+                    .collect(Collectors.toList());
+            Set<Long> existing = existingPatientIds(withoutPrescriptions);
+            for (Long patientId : patientIds){
+                if (found.containsKey(patientId) || existing.contains(patientId)){
+                    List<PrescriptionResponseDto> patientPrescriptions = found.getOrDefault(patientId, List.of());
+                    if (patientPrescriptions.size() > MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT){
+                        patientPrescriptions = patientPrescriptions.subList(0, MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT);
+                        truncatedPatientIds.add(patientId);
+                    }
+                    patients.put(patientId, patientPrescriptions);
+                } else {
+                    missingPatientIds.add(patientId);
+                }
+            }
+        }
+
+        return LookupResponseDto.builder()
+                .prescriptions(prescriptions)
+                .missingIds(missingIds)
+                .patients(patients)
+                .missingPatientIds(missingPatientIds)
+                .truncatedPatientIds(truncatedPatientIds)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<PrescriptionResponseDto> search(String query, String cursor, Integer size){
+        String term = query == null ? "" : query.trim();
+        if (term.length() < MIN_SEARCH_LENGTH){
+            throw new ValidationException(String.format("Search query must have at least %d characters", MIN_SEARCH_LENGTH));
+        }
+        log.debug("Searching prescriptions for: {}", term);
+
+        int pageSize = resolvePageSize(size);
+        long offset = cursor == null ? 0L : PageCursor.decodeSearchOffset(cursor, term);
+        if (offset < 0 || offset > MAX_SEARCH_OFFSET){
+            throw new ValidationException("Search results are limited to the first " + MAX_SEARCH_OFFSET + " matches");
+        }
+
+        String escaped = escapeLike(term);
+        List<Long> ids = prescriptionRepository.searchIds(term, "%" + escaped + "%", escaped + "%",
+                pageSize + 1, (int) offset);
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+
+        Map<Long, PrescriptionSnapshot> found = pageIds.isEmpty() ? Map.of()
+                : prescriptionRepository.findSnapshotsByIdIn(pageIds).stream()
+                        .collect(Collectors.toMap(PrescriptionSnapshot::getId, Function.identity()));
+        List<PrescriptionResponseDto> items = pageIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(PrescriptionServiceImpl::toResponseDto)
+                .collect(Collectors.toList());
+
+        return CursorPageResponseDto.<PrescriptionResponseDto>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? PageCursor.encodeSearch(term, offset + pageSize) : null)
+                .build();
+    }
+
     @Override
     public PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto){
-        log.info("Updating prescription with Id {}", id);
+        return update(id, dto, null);
+    }
+
+    @Override
+    public PrescriptionResponseDto update(Long id, PrescriptionRequestDto dto, Long expectedVersion){
+        log.debug("Updating prescription with Id {}", id);
+
+        Prescription updatedPrescription = expectedVersion == null
+                ? replace(id, dto)
+                : replaceIfVersionMatches(id, dto, expectedVersion);
+        log.info("Prescription updated {}", kv("prescriptionId", updatedPrescription.getId()));
+
+        PrescriptionResponseDto responseDto = toResponseDto(updatedPrescription);
+
+        eventPublisher.publishEvent(new PrescriptionUpdatedEvent(this, responseDto));
+
+        return responseDto;
+    }
+
+    @Override
+    public PrescriptionResponseDto patch(Long id, PrescriptionPatchDto dto, Long expectedVersion){
+        log.debug("Patching prescription with Id {}", id);
 
         Prescription existingPrescription = prescriptionRepository.findById(id)
                 .orElseThrow(()-> new NotFoundException("Prescription", id));
+        checkVersion(existingPrescription, expectedVersion);
+        String previousMedication = existingPrescription.getMedication();
+        Long previousPatientId = existingPrescription.getPatientId();
+        LocalDate previousValidUntil = existingPrescription.getValidUntil();
+
+        if (dto.getPatientId() != null && !dto.getPatientId().equals(existingPrescription.getPatientId())){
+            validatePatientExists(dto.getPatientId());
+            existingPrescription.setPatientId(dto.getPatientId());
+        }
+        if (dto.getDoctorName() != null){
+            existingPrescription.setDoctorName(dto.getDoctorName());
+        }
+        if (dto.getMedication() != null){
+            existingPrescription.setMedication(dto.getMedication());
+        }
+        if (dto.getDosage() != null){
+            existingPrescription.setDosage(dto.getDosage());
+        }
+        if (dto.getIssueDate() != null){
+            existingPrescription.setIssueDate(dto.getIssueDate());
+        }
+        if (dto.getValidUntil() != null){
+            existingPrescription.setValidUntil(dto.getValidUntil());
+        }
+        validateDates(existingPrescription.getIssueDate(), existingPrescription.getValidUntil());
+        if (!existingPrescription.getMedication().equals(previousMedication)
+                || !existingPrescription.getPatientId().equals(previousPatientId)
+                || !existingPrescription.getValidUntil().equals(previousValidUntil)){
+            patientRepository.lockForPrescriptionWrites(existingPrescription.getPatientId());
+            checkClinicalConflicts(existingPrescription.getPatientId(), existingPrescription.getMedication(),
+                    existingPrescription.getValidUntil(), id);
+        }
 
-        validatePatientExists(dto.getPatientId());
+        Prescription updatedPrescription = prescriptionRepository.saveAndFlush(existingPrescription);
+        log.info("Prescription patched {}", kv("prescriptionId", updatedPrescription.getId()));
 
-        validateDates(dto.getIssueDate(),dto.getValidUntil());
+        PrescriptionResponseDto responseDto = toResponseDto(updatedPrescription);
 
-        existingPrescription.setPatientId(dto.getPatientId());
-        existingPrescription.setDoctorName(dto.getDoctorName());
-        existingPrescription.setMedication(dto.getMedication());
-        existingPrescription.setDosage(dto.getDosage());
-        existingPrescription.setIssueDate(dto.getIssueDate());
-        existingPrescription.setValidUntil(dto.getValidUntil());
+        eventPublisher.publishEvent(new PrescriptionUpdatedEvent(this, responseDto));
 
-        Prescription updatedPrescription = prescriptionRepository.save(existingPrescription);
-        log.info("Prescription updated with Id: {}", updatedPrescription.getId());
-
-        return toResponseDto(updatedPrescription);
+        return responseDto;
     }
 
     @Override
     public void delete(Long id){
-        log.info("Deleting prescription with Id: {}", id);
+        log.debug("Deleting prescription with Id: {}", id);
 
-        if (!prescriptionRepository.existsById(id)){
+        if (prescriptionRepository.deleteDirectlyById(id) == 0){
             throw new NotFoundException("Prescription", id);
         }
-        prescriptionRepository.deleteById(id);
-        log.info("Prescription deleted with Id: {}", id);
+        log.info("Prescription deleted {}", kv("prescriptionId", id));
+
+        eventPublisher.publishEvent(new PrescriptionDeletedEvent(this, id));
+    }
+
+    @Override
+    public long deleteByIds(List<Long> ids){
+        log.debug("Deleting {} prescriptions by Id", ids.size());
+
+        List<Long> deletedIds = prescriptionRepository.deleteAllByIdReturningIds(new LinkedHashSet<>(ids));
+        log.info("Prescriptions deleted {} {}", kv("deleted", deletedIds.size()), kv("requested", ids.size()));
+
+        if (!deletedIds.isEmpty()){
+            eventPublisher.publishEvent(new PrescriptionsDeletedEvent(this, deletedIds));
+        }
+        return deletedIds.size();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long purgeExpiredBefore(LocalDate cutoff){
+        if (cutoff.isAfter(LocalDate.now())){
+            throw new ValidationException("Cutoff date cannot be in the future");
+        }
+        log.debug("Purging prescriptions valid until before {}", cutoff);
+
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> deletedIds = prescriptionRepository.deleteExpiredBefore(cutoff, PURGE_CHUNK_SIZE);
+                if (!deletedIds.isEmpty()){
+                    eventPublisher.publishEvent(new PrescriptionsDeletedEvent(this, deletedIds));
+                }
+                return deletedIds.size();
+            });
+            purged += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE);
+
+        log.info("Prescriptions purged {} {}", kv("purged", purged), kv("validUntilBefore", cutoff));
+        return purged;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PrescriptionResponseDto> getByDoctorName(String doctorName) {
-        log.info("Fetching prescriptions by doctor: {}", doctorName);
-        List<Prescription> prescriptions = prescriptionRepository.findByDoctorName(doctorName);
+        log.debug("Fetching prescriptions by doctor: {}", doctorName);
+        List<PrescriptionSnapshot> prescriptions = prescriptionRepository.findByDoctorName(doctorName);
 
 
         return prescriptions.stream()
-                .map(this::toResponseDto)
+                .map(PrescriptionServiceImpl::toResponseDto)
                 .collect(Collectors.toList());
 
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<PrescriptionResponseDto> getByDoctorName(String doctorName, String cursor, Integer size){
+        log.debug("Fetching prescription page by doctor: {}", doctorName);
+
+        int pageSize = resolvePageSize(size);
+        long afterId = cursor == null ? 0L : PageCursor.decode(cursor).getId();
+
+        List<PrescriptionSnapshot> prescriptions = prescriptionRepository.findPageByDoctorName(
+                doctorName, afterId, PageRequest.of(0, pageSize + 1));
+
+        return toPage(prescriptions, pageSize, prescription -> PageCursor.encode(prescription.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate) {
-        log.info("Fetching prescriptions between {} and {}", startDate, endDate);
+        log.debug("Fetching prescriptions between {} and {}", startDate, endDate);
 
         if (startDate.isAfter(endDate)){
             throw new ValidationException("Start date must be before or equal to end date");
         }
-        List <Prescription> prescriptions = prescriptionRepository.findByIssueDateBetween(startDate,endDate);
+        List <PrescriptionSnapshot> prescriptions = prescriptionRepository.findByIssueDateBetween(startDate,endDate);
 
         return prescriptions.stream()
-                .map(this::toResponseDto)
+                .map(PrescriptionServiceImpl::toResponseDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<PrescriptionResponseDto> getByDateRange(LocalDate startDate, LocalDate endDate,
+                                                                         String cursor, Integer size) {
+        log.debug("Fetching prescription page between {} and {}", startDate, endDate);
+
+        if (startDate.isAfter(endDate)){
+            throw new ValidationException("Start date must be before or equal to end date");
+        }
+        int pageSize = resolvePageSize(size);
+        LocalDate afterDate = startDate;
+        long afterId = 0L;
+        if (cursor != null){
+            PageCursor pageCursor = PageCursor.decodeWithDate(cursor);
+            afterDate = pageCursor.getIssueDate();
+            afterId = pageCursor.getId();
+        }
+
+        List<PrescriptionSnapshot> prescriptions = prescriptionRepository.findPageByIssueDateBetween(
+                startDate, endDate, afterDate, afterId, PageRequest.of(0, pageSize + 1));
+
+        return toPage(prescriptions, pageSize,
+                prescription -> PageCursor.encode(prescription.getIssueDate(), prescription.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByDateRange(LocalDate startDate, LocalDate endDate, ExportFormat format,
+                                  OutputStream outputStream) throws IOException {
+        log.debug("Exporting prescriptions between {} and {} as {}", startDate, endDate, format);
+
+        if (startDate.isAfter(endDate)){
+            throw new ValidationException("Start date must be before or equal to end date");
+        }
+
+        long exported = 0;
+        try (Stream<PrescriptionSnapshot> prescriptions =
+                     prescriptionRepository.streamByIssueDateBetween(startDate, endDate);
+             PrescriptionExportWriter writer = PrescriptionExportWriter.create(format, outputStream, objectMapper)) {
+            Iterator<PrescriptionSnapshot> iterator = prescriptions.iterator();
+            while (iterator.hasNext()){
+                PrescriptionSnapshot prescription = iterator.next();
+                writer.write(toResponseDto(prescription));
+                exported++;
+            }
+        }
+        log.info("Prescriptions exported {} {} {} {}", kv("count", exported), kv("startDate", startDate),
+                kv("endDate", endDate), kv("format", format));
+    }
+
+    private int resolvePageSize(Integer size){
+        if (size == null){
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1){
+            throw new ValidationException("Page size must be at least 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private CursorPageResponseDto<PrescriptionResponseDto> toPage(List<PrescriptionSnapshot> prescriptions, int pageSize,
+                                                                  Function<PrescriptionSnapshot, String> cursorOf){
+        boolean hasMore = prescriptions.size() > pageSize;
+        List<PrescriptionSnapshot> page = hasMore ? prescriptions.subList(0, pageSize) : prescriptions;
+
+        List<PrescriptionResponseDto> items = page.stream()
+                .map(PrescriptionServiceImpl::toResponseDto)
+                .collect(Collectors.toList());
+
+        return CursorPageResponseDto.<PrescriptionResponseDto>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    private Set<Long> findExistingPatientIds(List<PrescriptionRequestDto> dtos){
+        List<Long> patientIds = dtos.stream()
+                .filter(Objects::nonNull)
+                .map(PrescriptionRequestDto::getPatientId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        return existingPatientIds(patientIds);
+    }
+
+    private static String escapeLike(String value){
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Set<Long> distinctIds(List<Long> ids){
+        if (ids == null){
+            return Set.of();
+        }
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private Set<Long> existingPatientIds(List<Long> patientIds){
+        Set<Long> existing = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long patientId : patientIds){
+            if (patientExistenceIndex.contains(patientId)){
+                existing.add(patientId);
+            } else {
+                unknown.add(patientId);
+            }
+        }
+
+        for (int from = 0; from < unknown.size(); from += PATIENT_LOOKUP_CHUNK_SIZE){
+            int to = Math.min(from + PATIENT_LOOKUP_CHUNK_SIZE, unknown.size());
+            List<Long> found = patientRepository.findExistingIds(unknown.subList(from, to));
+            found.forEach(patientExistenceIndex::add);
+            existing.addAll(found);
+        }
+        return existing;
+    }
+
+    private String validateBatchItem(PrescriptionRequestDto dto, Set<Long> existingPatientIds){
+        if (dto == null){
+            return "Prescription is required";
+        }
+
+        Set<ConstraintViolation<PrescriptionRequestDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()){
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        if (!existingPatientIds.contains(dto.getPatientId())){
+            return new NotFoundException("Patient", dto.getPatientId()).getMessage();
+        }
+
+        try {
+            validateDates(dto.getIssueDate(), dto.getValidUntil());
+        } catch (ValidationException ex){
+            return ex.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Checks the chunk's active items against each patient's active prescriptions and against earlier items of the
+     * batch, under the patients' locks, then saves the rest. Conflicting items are reported as failed.
+     */
+    private int saveChunk(List<Prescription> chunk, List<Integer> chunkIndexes, BatchItemResultDto[] results){
+        ChunkResult chunkResult;
+        try {
+            chunkResult = transactionTemplate.execute(status -> {
+                Map<Integer, String> conflicts = new HashMap<>();
+                List<Prescription> accepted = new ArrayList<>(chunk.size());
+                List<Integer> acceptedIndexes = new ArrayList<>(chunk.size());
+                LocalDate today = LocalDate.now();
+                Map<Long, List<String>> activeMedications = lockAndLoadActiveMedications(chunk, today);
+                for (int i = 0; i < chunk.size(); i++){
+                    Prescription prescription = chunk.get(i);
+                    List<String> active = prescription.getValidUntil().isBefore(today) ? null
+                            : activeMedications.get(prescription.getPatientId());
+                    if (active != null){
+                        Map<String, String> found = interactionMatrix.conflicts(prescription.getMedication(), active);
+                        if (!found.isEmpty()){
+                            conflicts.put(chunkIndexes.get(i), describeConflicts(prescription.getMedication(), found));
+                            continue;
+                        }
+                        active.add(prescription.getMedication());
+                    }
+                    accepted.add(prescription);
+                    acceptedIndexes.add(chunkIndexes.get(i));
+                }
+
+                List<PrescriptionResponseDto> created = List.of();
+                if (!accepted.isEmpty()){
+                    List<Prescription> saved = prescriptionRepository.saveAll(accepted);
+                    prescriptionRepository.flush();
+                    created = saved.stream()
+                            .map(PrescriptionServiceImpl::toResponseDto)
+                            .collect(Collectors.toList());
+                    entityManager.clear();
+
+                    eventPublisher.publishEvent(new PrescriptionsBatchCreatedEvent(this, created));
+                }
+                return new ChunkResult(acceptedIndexes, created, conflicts);
+            });
+        } catch (RuntimeException ex){
+            log.warn("Prescription batch chunk failed {} {}", kv("size", chunk.size()), kv("error", ex.getMessage()));
+            for (Integer index : chunkIndexes){
+                results[index] = BatchItemResultDto.builder()
+                        .index(index)
+                        .status(BatchItemResultDto.Status.FAILED)
+                        .error("Chunk could not be saved: " + ex.getMessage())
+                        .build();
+            }
+            chunk.clear();
+            chunkIndexes.clear();
+            return 0;
+        }
+
+        chunkResult.conflicts().forEach((index, error) -> results[index] = BatchItemResultDto.builder()
+                .index(index)
+                .status(BatchItemResultDto.Status.FAILED)
+                .error(error)
+                .build());
+        for (int i = 0; i < chunkResult.created().size(); i++){
+            results[chunkResult.createdIndexes().get(i)] = BatchItemResultDto.builder()
+                    .index(chunkResult.createdIndexes().get(i))
+                    .status(BatchItemResultDto.Status.CREATED)
+                    .prescription(chunkResult.created().get(i))
+                    .build();
+        }
+
+        int count = chunkResult.created().size();
+        chunk.clear();
+        chunkIndexes.clear();
+        return count;
+    }
+
+    /**
+     * Locks every patient with an active item in the chunk, in id order so concurrent batches cannot deadlock, and
+     * loads each one's active medications with one query. Earlier chunks of the batch have committed by now, so
+     * their items are part of that result.
+     */
+    private Map<Long, List<String>> lockAndLoadActiveMedications(List<Prescription> chunk, LocalDate today){
+        Map<Long, List<String>> activeMedications = new TreeMap<>();
+        for (Prescription prescription : chunk){
+            if (!prescription.getValidUntil().isBefore(today)){
+                activeMedications.putIfAbsent(prescription.getPatientId(), null);
+            }
+        }
+        for (Map.Entry<Long, List<String>> patient : activeMedications.entrySet()){
+            patientRepository.lockForPrescriptionWrites(patient.getKey());
+            patient.setValue(new ArrayList<>(prescriptionRepository.findActiveMedications(patient.getKey(), today, 0L)));
+        }
+        return activeMedications;
+    }
+
+    private static String describeConflicts(String medication, Map<String, String> conflicts){
+        return new ClinicalConflictException(medication, conflicts).getMessage() + ": " + conflicts.entrySet().stream()
+                .map(conflict -> conflict.getKey() + " (" + conflict.getValue() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    private record ChunkResult(List<Integer> createdIndexes, List<PrescriptionResponseDto> created,
+                               Map<Integer, String> conflicts){
+    }
+
+    private Prescription replace(Long id, PrescriptionRequestDto dto){
+        Prescription existingPrescription = prescriptionRepository.findById(id)
+                .orElseThrow(()-> new NotFoundException("Prescription", id));
+
+        validatePatientExists(dto.getPatientId());
+
+        validateDates(dto.getIssueDate(),dto.getValidUntil());
+        patientRepository.lockForPrescriptionWrites(dto.getPatientId());
+        checkClinicalConflicts(dto.getPatientId(), dto.getMedication(), dto.getValidUntil(), id);
+
+        existingPrescription.setPatientId(dto.getPatientId());
+        existingPrescription.setDoctorName(dto.getDoctorName());
+        existingPrescription.setMedication(dto.getMedication());
+        existingPrescription.setDosage(dto.getDosage());
+        existingPrescription.setIssueDate(dto.getIssueDate());
+        existingPrescription.setValidUntil(dto.getValidUntil());
+
+        return prescriptionRepository.saveAndFlush(existingPrescription);
+    }
+
+    private Prescription replaceIfVersionMatches(Long id, PrescriptionRequestDto dto, Long expectedVersion){
+        validatePatientExists(dto.getPatientId());
+
+        validateDates(dto.getIssueDate(),dto.getValidUntil());
+        patientRepository.lockForPrescriptionWrites(dto.getPatientId());
+        checkClinicalConflicts(dto.getPatientId(), dto.getMedication(), dto.getValidUntil(), id);
+
+        int updated = prescriptionRepository.updateIfVersionMatches(id, expectedVersion, dto.getPatientId(),
+                dto.getDoctorName(), dto.getMedication(), dto.getDosage(), dto.getIssueDate(), dto.getValidUntil());
+        if (updated == 0){
+            if (!prescriptionRepository.existsById(id)){
+                throw new NotFoundException("Prescription", id);
+            }
+            throw new PreconditionFailedException(
+                    String.format("Prescription with id %d has changed since version %d", id, expectedVersion));
+        }
+
+        Prescription updatedPrescription = toEntity(dto);
+        updatedPrescription.setId(id);
+        updatedPrescription.setVersion(expectedVersion + 1);
+        return updatedPrescription;
+    }
+
+    private static void checkVersion(Prescription prescription, Long expectedVersion){
+        if (expectedVersion != null && !expectedVersion.equals(prescription.getVersion())){
+            throw new PreconditionFailedException(String.format("Prescription with id %d has changed since version %d",
+                    prescription.getId(), expectedVersion));
+        }
+    }
+
     private void validatePatientExists(Long patientId){
+        if (patientExistenceIndex.contains(patientId)){
+            return;
+        }
         if (!patientRepository.existsById(patientId)){
             throw new NotFoundException("Patient", patientId);
         }
+        patientExistenceIndex.add(patientId);
     }
 
-    private void validateDates(LocalDate issueDate, LocalDate validUntil){
+    /**
+     * Rejects a medication that duplicates or interacts with one of the patient's other active prescriptions.
+     * Already expired prescriptions are not checked.
+     */
+    private void checkClinicalConflicts(Long patientId, String medication, LocalDate validUntil, Long prescriptionId){
+        LocalDate today = LocalDate.now();
+        if (validUntil.isBefore(today)){
+            return;
+        }
+        List<String> activeMedications = prescriptionRepository.findActiveMedications(patientId, today,
+                prescriptionId == null ? 0L : prescriptionId);
+        Map<String, String> conflicts = interactionMatrix.conflicts(medication, activeMedications);
+        if (!conflicts.isEmpty()){
+            throw new ClinicalConflictException(medication, conflicts);
+        }
+    }
+
+    static void validateDates(LocalDate issueDate, LocalDate validUntil){
         if (validUntil.isBefore(issueDate)){
             throw new ValidationException(String.format("Valid until date %s cannot be before issue date %s", validUntil, issueDate)
             );
         }
     }
 
-    private PrescriptionResponseDto toResponseDto(Prescription prescription){
+    private static Prescription toEntity(PrescriptionRequestDto dto){
+        return Prescription.builder()
+                .patientId(dto.getPatientId())
+                .doctorName(dto.getDoctorName())
+                .medication(dto.getMedication())
+                .dosage(dto.getDosage())
+                .issueDate(dto.getIssueDate())
+                .validUntil(dto.getValidUntil())
+                .build();
+    }
+
+    static PrescriptionResponseDto toResponseDto(Prescription prescription){
+        boolean isExpired = LocalDate.now().isAfter(prescription.getValidUntil());
+
+
+        return PrescriptionResponseDto.builder()
+                .id(prescription.getId())
+                .patientId(prescription.getPatientId())
+                .doctorName(prescription.getDoctorName())
+                .medication(prescription.getMedication())
+                .dosage(prescription.getDosage())
+                .issueDate(prescription.getIssueDate())
+                .validUntil(prescription.getValidUntil())
+                .isExpired(isExpired)
+                .version(prescription.getVersion())
+                .build();
+    }
+
+    static PrescriptionResponseDto toResponseDto(PrescriptionSnapshot prescription){
         boolean isExpired = LocalDate.now().isAfter(prescription.getValidUntil());
 
 
@@ -167,6 +854,7 @@ public class PrescriptionServiceImpl implements PrescriptionService {
                 .issueDate(prescription.getIssueDate())
                 .validUntil(prescription.getValidUntil())
                 .isExpired(isExpired)
+                .version(prescription.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,74 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.dto.PrescriptionCount;
+import com.example.prescriptions.dto.PrescriptionStatisticsDto;
+import com.example.prescriptions.exception.ValidationException;
+import com.example.prescriptions.repository.PrescriptionStatsRepository;
+import com.example.prescriptions.service.PrescriptionStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Reads the trigger-maintained rollups, so every figure costs one row per group rather than one per prescription.
+ * Totals and active/expired counts cover all current prescriptions; the per-group lists cover the requested months.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PrescriptionStatisticsServiceImpl implements PrescriptionStatisticsService {
+    static final int DEFAULT_RANGE_MONTHS = 12;
+    static final int MAX_RANGE_MONTHS = 120;
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 500;
+
+    private final PrescriptionStatsRepository statsRepository;
+
+    @Override
+    public PrescriptionStatisticsDto getStatistics(YearMonth from, YearMonth to, Integer limit){
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(DEFAULT_RANGE_MONTHS - 1);
+        if (start.isAfter(end)){
+            throw new ValidationException(String.format("From month %s cannot be after to month %s", start, end));
+        }
+        if (start.plusMonths(MAX_RANGE_MONTHS).isBefore(end.plusMonths(1))){
+            throw new ValidationException("Statistics cover at most " + MAX_RANGE_MONTHS + " months");
+        }
+        PageRequest top = PageRequest.of(0, resolveLimit(limit));
+        LocalDate firstMonth = start.atDay(1);
+        LocalDate lastMonth = end.atDay(1);
+
+        long total = statsRepository.countAll();
+        long active = statsRepository.countValidOn(LocalDate.now());
+        List<PrescriptionCount> byMonth = statsRepository.countByMonth(firstMonth, lastMonth).stream()
+                .filter(count -> count.getPrescriptions() > 0)
+                .map(count -> new PrescriptionCount(YearMonth.from(count.getMonth()).toString(), count.getPrescriptions()))
+                .toList();
+
+        return PrescriptionStatisticsDto.builder()
+                .total(total)
+                .active(active)
+                .expired(total - active)
+                .from(start)
+                .to(end)
+                .byDoctor(statsRepository.countByDoctor(firstMonth, lastMonth, top))
+                .byMedication(statsRepository.countByMedication(firstMonth, lastMonth, top))
+                .byMonth(byMonth)
+                .build();
+    }
+
+    private static int resolveLimit(Integer limit){
+        if (limit == null){
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1){
+            throw new ValidationException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.prescriptions.service.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one. The first caller runs the loader; callers that arrive while it
+ * is still running wait for it and get the same result, or the same exception. Nothing is kept once the call
+ * completes. A joining caller can still receive a result whose query started before it arrived, so writers call
+ * {@link #invalidate()} after committing: callers that arrive afterwards only join calls started after it.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader){
+        Flight<V> call = new Flight<>(generation.get());
+        Flight<V> running;
+        while ((running = inFlight.putIfAbsent(key, call)) != null){
+            if (running.generation >= call.generation){
+                shared.increment();
+                return await(running.result);
+            }
+            // Started before the last invalidation; later callers join this call instead.
+            if (inFlight.replace(key, running, call)){
+                break;
+            }
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            call.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.result.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Stops callers that arrive from now on joining calls that are already running.
+     */
+    public void invalidate(){
+        generation.incrementAndGet();
+    }
+
+    public long executedCount(){
+        return executed.sum();
+    }
+
+    public long sharedCount(){
+        return shared.sum();
+    }
+
+    public int inFlightCount(){
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> running){
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            if (cause instanceof Error error){
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Flight<V> {
+        private final long generation;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private Flight(long generation){
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+-- Rollups behind GET /prescriptions/stats. Statement triggers on prescriptions record a delta for every write path
+-- (JPA, bulk deletes, archival, the reactive module); StatisticsRecomputeJob folds the deltas in every minute and
+-- corrects any drift nightly. Counts can reach zero; readers skip those rows and the recompute removes them.
+CREATE TABLE IF NOT EXISTS prescription_stats (
+    doctor_name   VARCHAR(100) NOT NULL,
+    medication    VARCHAR(200) NOT NULL,
+    issue_month   DATE         NOT NULL,
+    prescriptions BIGINT       NOT NULL,
+    PRIMARY KEY (doctor_name, medication, issue_month)
+);
+
+CREATE INDEX IF NOT EXISTS idx_prescription_stats_issue_month ON prescription_stats (issue_month);
+
+-- Active vs. expired depends on today's date, so counts are kept per valid_until day and split at query time.
+CREATE TABLE IF NOT EXISTS prescription_expiry_stats (
+    valid_until   DATE   PRIMARY KEY,
+    prescriptions BIGINT NOT NULL
+);
+
+-- Statement triggers only append to these insert-only tables, so concurrent writers never wait on one another's
+-- rollup rows. StatisticsRecomputeJob folds the deltas into the rollups above.
+CREATE TABLE IF NOT EXISTS prescription_stats_deltas (
+    doctor_name VARCHAR(100) NOT NULL,
+    medication  VARCHAR(200) NOT NULL,
+    issue_month DATE         NOT NULL,
+    delta       BIGINT       NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_prescription_stats_deltas_issue_month ON prescription_stats_deltas (issue_month);
+
+CREATE TABLE IF NOT EXISTS prescription_expiry_stats_deltas (
+    valid_until DATE   NOT NULL,
+    delta       BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_prescription_expiry_stats_deltas_valid_until ON prescription_expiry_stats_deltas (valid_until);
+
+-- What GET /prescriptions/stats reads: the rollups plus the deltas not folded yet.
+CREATE OR REPLACE VIEW prescription_stats_current AS
+SELECT doctor_name, medication, issue_month, sum(prescriptions)::bigint AS prescriptions
+FROM (
+    SELECT doctor_name, medication, issue_month, prescriptions FROM prescription_stats
+    UNION ALL
+    SELECT doctor_name, medication, issue_month, delta FROM prescription_stats_deltas
+) counts
+GROUP BY doctor_name, medication, issue_month
+HAVING sum(prescriptions) <> 0;
+
+CREATE OR REPLACE VIEW prescription_expiry_stats_current AS
+SELECT valid_until, sum(prescriptions)::bigint AS prescriptions
+FROM (
+    SELECT valid_until, prescriptions FROM prescription_expiry_stats
+    UNION ALL
+    SELECT valid_until, delta FROM prescription_expiry_stats_deltas
+) counts
+GROUP BY valid_until
+HAVING sum(prescriptions) <> 0;
+
+-- Appends one summed delta per rollup row the statement changed. Groups whose deltas cancel out, such as updates that
+-- only bump the version, append nothing.
+CREATE OR REPLACE FUNCTION record_prescription_stats_deltas() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO prescription_stats_deltas (doctor_name, medication, issue_month, delta)
+        SELECT doctor_name, medication, date_trunc('month', issue_date)::date, count(*)
+        FROM new_rows
+        GROUP BY 1, 2, 3;
+
+        INSERT INTO prescription_expiry_stats_deltas (valid_until, delta)
+        SELECT valid_until, count(*)
+        FROM new_rows
+        GROUP BY 1;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO prescription_stats_deltas (doctor_name, medication, issue_month, delta)
+        SELECT doctor_name, medication, date_trunc('month', issue_date)::date, -count(*)
+        FROM old_rows
+        GROUP BY 1, 2, 3;
+
+        INSERT INTO prescription_expiry_stats_deltas (valid_until, delta)
+        SELECT valid_until, -count(*)
+        FROM old_rows
+        GROUP BY 1;
+    ELSE
+        INSERT INTO prescription_stats_deltas (doctor_name, medication, issue_month, delta)
+        SELECT doctor_name, medication, issue_month, sum(delta)
+        FROM (
+            SELECT doctor_name, medication, date_trunc('month', issue_date)::date AS issue_month, -1 AS delta FROM old_rows
+            UNION ALL
+            SELECT doctor_name, medication, date_trunc('month', issue_date)::date, 1 FROM new_rows
+        ) changed
+        GROUP BY 1, 2, 3
+        HAVING sum(delta) <> 0;
+
+        INSERT INTO prescription_expiry_stats_deltas (valid_until, delta)
+        SELECT valid_until, sum(delta)
+        FROM (
+            SELECT valid_until, -1 AS delta FROM old_rows
+            UNION ALL
+            SELECT valid_until, 1 FROM new_rows
+        ) changed
+        GROUP BY 1
+        HAVING sum(delta) <> 0;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- Statement triggers on the parent only fire for statements against the parent, so every write path, including
+-- PartitionMaintenanceJob, goes through prescriptions. Postgres allows transition tables on single-event triggers only.
+CREATE TRIGGER prescriptions_stats_insert
+    AFTER INSERT ON prescriptions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_prescription_stats_deltas();
+
+CREATE TRIGGER prescriptions_stats_update
+    AFTER UPDATE ON prescriptions
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_prescription_stats_deltas();
+
+CREATE TRIGGER prescriptions_stats_delete
+    AFTER DELETE ON prescriptions
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_prescription_stats_deltas();
+
+INSERT INTO prescription_stats (doctor_name, medication, issue_month, prescriptions)
+SELECT doctor_name, medication, date_trunc('month', issue_date)::date, count(*)
+FROM prescriptions
+GROUP BY 1, 2, 3;
+
+INSERT INTO prescription_expiry_stats (valid_until, prescriptions)
+SELECT valid_until, count(*)
+FROM prescriptions
+GROUP BY valid_until;
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS patients (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name  VARCHAR(100) NOT NULL
+);
+
+CREATE SEQUENCE IF NOT EXISTS prescriptions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS prescriptions (
+    id          BIGINT PRIMARY KEY,
+    patient_id  BIGINT       NOT NULL,
+    doctor_name VARCHAR(100) NOT NULL,
+    medication  VARCHAR(200) NOT NULL,
+    dosage      VARCHAR(100) NOT NULL,
+    issue_date  DATE         NOT NULL,
+    valid_until DATE         NOT NULL
+);
+
+SELECT setval('prescriptions_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM prescriptions), 1));
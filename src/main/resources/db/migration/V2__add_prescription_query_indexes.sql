@@ -0,0 +1,11 @@
+-- findPageByPatientId / findByPatientId: patient_id = ? ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_id_id ON prescriptions (patient_id, id);
+
+-- findByPatientIdAndDoctorName: patient_id = ? AND doctor_name = ?
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_id_doctor_name ON prescriptions (patient_id, doctor_name);
+
+-- findPageByDoctorName / findByDoctorName: doctor_name = ? ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_prescriptions_doctor_name_id ON prescriptions (doctor_name, id);
+
+-- findPageByIssueDateBetween / findByIssueDateBetween / streamByIssueDateBetween: issue_date range ORDER BY issue_date, id
+CREATE INDEX IF NOT EXISTS idx_prescriptions_issue_date_id ON prescriptions (issue_date, id);
@@ -0,0 +1,9 @@
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id           BIGINT PRIMARY KEY,
+    aggregate_id BIGINT                   NOT NULL,
+    event_type   VARCHAR(64)              NOT NULL,
+    payload      TEXT                     NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL
+);
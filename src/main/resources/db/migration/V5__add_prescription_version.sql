@@ -0,0 +1 @@
+ALTER TABLE prescriptions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
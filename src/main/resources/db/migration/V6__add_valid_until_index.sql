@@ -0,0 +1,2 @@
+-- deleteExpiredBefore: valid_until < ? ORDER BY valid_until, id LIMIT ?
+CREATE INDEX IF NOT EXISTS idx_prescriptions_valid_until_id ON prescriptions (valid_until, id);
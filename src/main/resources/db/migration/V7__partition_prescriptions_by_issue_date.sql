@@ -0,0 +1,58 @@
+-- Range-partition prescriptions by month of issue_date so date-range queries only read the matching partitions and
+-- old months can be dropped once archived. The primary key has to include the partition key; ids stay unique through
+-- prescriptions_seq. PartitionMaintenanceJob creates upcoming months; rows outside every month land in the default
+-- partition.
+ALTER TABLE prescriptions RENAME TO prescriptions_unpartitioned;
+
+CREATE TABLE prescriptions (
+    id          BIGINT       NOT NULL,
+    patient_id  BIGINT       NOT NULL,
+    doctor_name VARCHAR(100) NOT NULL,
+    medication  VARCHAR(200) NOT NULL,
+    dosage      VARCHAR(100) NOT NULL,
+    issue_date  DATE         NOT NULL,
+    valid_until DATE         NOT NULL,
+    version     BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, issue_date)
+) PARTITION BY RANGE (issue_date);
+
+CREATE TABLE prescriptions_default PARTITION OF prescriptions DEFAULT;
+
+DO $$
+DECLARE
+    partition_month DATE := date_trunc('month', LEAST(
+            COALESCE((SELECT MIN(issue_date) FROM prescriptions_unpartitioned), CURRENT_DATE), CURRENT_DATE))::date;
+BEGIN
+    WHILE partition_month <= date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF prescriptions FOR VALUES FROM (%L) TO (%L)',
+                       'prescriptions_' || to_char(partition_month, 'YYYY_MM'), partition_month, (partition_month + INTERVAL '1 month')::date);
+        partition_month := (partition_month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until, version)
+SELECT id, patient_id, doctor_name, medication, dosage, issue_date, valid_until, version
+FROM prescriptions_unpartitioned;
+
+DROP TABLE prescriptions_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_id_id ON prescriptions (patient_id, id);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_id_doctor_name ON prescriptions (patient_id, doctor_name);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_doctor_name_id ON prescriptions (doctor_name, id);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_issue_date_id ON prescriptions (issue_date, id);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_valid_until_id ON prescriptions (valid_until, id);
+
+-- Prescriptions moved out of the hot table by PrescriptionArchivalJob.
+CREATE TABLE IF NOT EXISTS prescriptions_archive (
+    id          BIGINT PRIMARY KEY,
+    patient_id  BIGINT                   NOT NULL,
+    doctor_name VARCHAR(100)             NOT NULL,
+    medication  VARCHAR(200)             NOT NULL,
+    dosage      VARCHAR(100)             NOT NULL,
+    issue_date  DATE                     NOT NULL,
+    valid_until DATE                     NOT NULL,
+    version     BIGINT                   NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_prescriptions_archive_patient_id ON prescriptions_archive (patient_id);
@@ -0,0 +1,4 @@
+-- findVersionPageByPatientId reads only id, version and valid_until, so conditional GETs on a patient's page can be
+-- answered from the index without touching the table.
+DROP INDEX IF EXISTS idx_prescriptions_patient_id_id;
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_id_id ON prescriptions (patient_id, id) INCLUDE (version, valid_until);
@@ -0,0 +1,6 @@
+-- searchIds: substring (ILIKE '%q%') and typo-tolerant (q <% column) matches on medication and doctor name.
+-- pg_trgm ships with the standard Postgres contrib package.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_prescriptions_medication_trgm ON prescriptions USING gin (medication gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_doctor_name_trgm ON prescriptions USING gin (doctor_name gin_trgm_ops);
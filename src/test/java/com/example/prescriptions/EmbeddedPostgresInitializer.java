@@ -0,0 +1,45 @@
+package com.example.prescriptions;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Points {@code spring.datasource.*} at an embedded Postgres that is started once and shared by every test context
+ * in the JVM. Flyway migrates it when the first context starts; tests clean up the rows they write.
+ */
+public class EmbeddedPostgresInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static EmbeddedPostgres postgres;
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // The JVM is exiting anyway.
+                }
+            }));
+        }
+        return postgres;
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        TestPropertyValues.of(
+                "spring.datasource.url=" + postgres().getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "spring.datasource.username=postgres",
+                "spring.datasource.password="
+        ).applyTo(context);
+    }
+}
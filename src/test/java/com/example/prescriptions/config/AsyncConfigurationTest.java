@@ -0,0 +1,128 @@
+package com.example.prescriptions.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Event Executor Tests")
+class AsyncConfigurationTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor pool;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run an event on the publishing thread when the pool queue is full")
+    void threadPool_CallerRunsWhenQueueFull() throws Exception {
+        pool = pool(AsyncConfiguration.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> block(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pool.execute(() -> block(null));
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        pool.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1.0, rejected("caller_runs"));
+    }
+
+    @Test
+    @DisplayName("Should drop an event when the pool queue is full and the policy is DROP")
+    void threadPool_DropsWhenQueueFull() throws Exception {
+        pool = pool(AsyncConfiguration.RejectionPolicy.DROP);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> block(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pool.execute(() -> block(null));
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        pool.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertNull(ranOn.get());
+        assertEquals(1.0, rejected("drop"));
+    }
+
+    @Test
+    @DisplayName("Should run an event on the publishing thread when every bounded permit is taken")
+    void bounded_CallerRunsWhenSaturated() throws Exception {
+        BoundedEventExecutor executor = bounded(AsyncConfiguration.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> block(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1.0, rejected("caller_runs"));
+        assertEquals(1, executor.inFlight());
+    }
+
+    @Test
+    @DisplayName("Should drop an event when every bounded permit is taken and free the permit once an event ends")
+    void bounded_DropsWhenSaturatedAndReleases() throws Exception {
+        BoundedEventExecutor executor = bounded(AsyncConfiguration.RejectionPolicy.DROP);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> block(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+        assertNull(ranOn.get());
+        assertEquals(1.0, rejected("drop"));
+
+        release.countDown();
+        CountDownLatch ran = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.execute(ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, rejected("drop"));
+    }
+
+    private ThreadPoolTaskExecutor pool(AsyncConfiguration.RejectionPolicy policy) {
+        ThreadPoolTaskExecutor executor = AsyncConfiguration.threadPoolEventExecutor(1, 1, 1, policy, meterRegistry);
+        executor.initialize();
+        return executor;
+    }
+
+    private BoundedEventExecutor bounded(AsyncConfiguration.RejectionPolicy policy) {
+        // Platform threads stand in for virtual ones so the test runs on Java 17.
+        return new BoundedEventExecutor(new SimpleAsyncTaskExecutor("event-test-"), 1, policy, meterRegistry);
+    }
+
+    private void block(CountDownLatch started) {
+        if (started != null) {
+            started.countDown();
+        }
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double rejected(String policy) {
+        return meterRegistry.get("prescriptions.events.rejected").tag("policy", policy).counter().count();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.prescriptions.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Invalidation Aware Cache Tests")
+class InvalidationAwareCacheTest {
+
+    private final InvalidationAwareCache cache = new InvalidationAwareCache("prescriptions", Caffeine.newBuilder().build());
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should load a missing value once and serve it from the cache afterwards")
+    void get_CachesLoadedValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache a missing row")
+    void get_DoesNotCacheNull() {
+        assertNull(cache.get(1L, () -> null));
+
+        assertEquals("v2", cache.get(1L, () -> "v2"));
+    }
+
+    @Test
+    @DisplayName("Should drop a value that was loaded before a concurrent eviction of the same key")
+    void get_DropsValueLoadedBeforeEviction() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        Thread writer = new Thread(() -> cache.evict(1L));
+
+        Future<String> reader = executor.submit(() -> cache.get(1L, () -> {
+            loaded.countDown();
+            // The eviction waits for the load of the same key to finish.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (writer.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline){
+                Thread.onSpinWait();
+            }
+            return "v1";
+        }));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        writer.start();
+
+        assertEquals("v1", reader.get(5, TimeUnit.SECONDS));
+        writer.join(5000);
+        assertNull(cache.get(1L));
+        assertEquals("v2", cache.get(1L, () -> "v2"));
+    }
+
+    @Test
+    @DisplayName("Should share one load between concurrent misses for the same key")
+    void get_SharesConcurrentLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> cache.get(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return "v1";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<String> second = executor.submit(() -> cache.get(1L, () -> "v" + (1 + loads.incrementAndGet())));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("v1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("v1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should keep a loaded value when only another key was evicted")
+    void get_KeepsValueWhenOtherKeyEvicted() {
+        String value = cache.get(1L, () -> {
+            cache.evict(2L);
+            return "v1";
+        });
+
+        assertEquals("v1", value);
+        assertNotNull(cache.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should drop a value loaded while the whole cache was cleared")
+    void get_DropsValueLoadedBeforeClear() {
+        cache.get(1L, () -> {
+            cache.clear();
+            return "v1";
+        });
+
+        assertNull(cache.get(1L));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.prescriptions.controller;
+
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.service.PrescriptionService;
+import com.example.prescriptions.service.VersionTags;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(PrescriptionController.class)
+@DisplayName("Prescription Controller Tests")
+class PrescriptionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PrescriptionService prescriptionService;
+
+    @Test
+    @DisplayName("Should report how many prescriptions a bulk delete removed")
+    void deletePrescriptions_ReturnsDeletedCount() throws Exception {
+        when(prescriptionService.deleteByIds(anyList())).thenReturn(2L);
+
+        mockMvc.perform(post("/prescriptions/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,99]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+    }
+
+    @Test
+    @DisplayName("Should reject a bulk delete over 10000 ids before reaching the service")
+    void deletePrescriptions_RejectsOverCap() throws Exception {
+        String ids = LongStream.rangeClosed(1, 10_001)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(post("/prescriptions/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + ids + "]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details.ids").exists());
+
+        verifyNoInteractions(prescriptionService);
+    }
+
+    @Test
+    @DisplayName("Should reject a bulk delete without ids")
+    void deletePrescriptions_RejectsEmpty() throws Exception {
+        mockMvc.perform(post("/prescriptions/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(prescriptionService);
+    }
+
+    @Test
+    @DisplayName("Should return a prescription with its ETag and Cache-Control without a separate version query")
+    void getPrescriptionById_UnconditionalSkipsVersionQuery() throws Exception {
+        when(prescriptionService.getById(1L)).thenReturn(prescription(1L, 3L));
+
+        mockMvc.perform(get("/prescriptions/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-active\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("private")))
+                .andExpect(jsonPath("$.version").value(3));
+
+        verify(prescriptionService, never()).getVersionTag(any());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without loading the prescription when If-None-Match matches")
+    void getPrescriptionById_MatchingTagReturnsNotModified() throws Exception {
+        when(prescriptionService.getVersionTag(1L)).thenReturn("3-active");
+
+        mockMvc.perform(get("/prescriptions/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-active\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-active\""));
+
+        verify(prescriptionService, never()).getById(any());
+    }
+
+    @Test
+    @DisplayName("Should return the current prescription when If-None-Match names an older version")
+    void getPrescriptionById_StaleTagReturnsBody() throws Exception {
+        when(prescriptionService.getVersionTag(1L)).thenReturn("4-active");
+        when(prescriptionService.getById(1L)).thenReturn(prescription(1L, 4L));
+
+        mockMvc.perform(get("/prescriptions/1").header(HttpHeaders.IF_NONE_MATCH, "\"3-active\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4-active\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    @DisplayName("Should tag a patient page from the loaded items when no If-None-Match is sent")
+    void getPrescriptionsByPatientId_UnconditionalSkipsVersionQuery() throws Exception {
+        CursorPageResponseDto<PrescriptionResponseDto> page = page(prescription(1L, 1L), prescription(2L, 1L));
+        when(prescriptionService.getByPatientId(7L, null, null)).thenReturn(page);
+
+        mockMvc.perform(get("/prescriptions/patient/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VersionTags.ofPage(page) + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        verify(prescriptionService, never()).getPatientPageVersionTag(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged patient page")
+    void getPrescriptionsByPatientId_MatchingTagReturnsNotModified() throws Exception {
+        String tag = VersionTags.ofPage(page(prescription(1L, 1L), prescription(2L, 1L)));
+        when(prescriptionService.getPatientPageVersionTag(7L, null, null)).thenReturn(tag);
+
+        mockMvc.perform(get("/prescriptions/patient/7").header(HttpHeaders.IF_NONE_MATCH, "\"" + tag + "\""))
+                .andExpect(status().isNotModified());
+
+        verify(prescriptionService, never()).getByPatientId(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the page with a new ETag once one of its prescriptions changed")
+    void getPrescriptionsByPatientId_ChangedPageReturnsBody() throws Exception {
+        String oldTag = VersionTags.ofPage(page(prescription(1L, 1L), prescription(2L, 1L)));
+        CursorPageResponseDto<PrescriptionResponseDto> changed = page(prescription(1L, 1L), prescription(2L, 2L));
+        String newTag = VersionTags.ofPage(changed);
+        when(prescriptionService.getPatientPageVersionTag(7L, null, null)).thenReturn(newTag);
+        when(prescriptionService.getByPatientId(7L, null, null)).thenReturn(changed);
+
+        mockMvc.perform(get("/prescriptions/patient/7").header(HttpHeaders.IF_NONE_MATCH, "\"" + oldTag + "\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + newTag + "\""))
+                .andExpect(jsonPath("$.items[1].version").value(2));
+    }
+
+    @Test
+    @DisplayName("Should give only the export its own long async timeout")
+    void exportPrescriptions_UsesExportTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/prescriptions/export")
+                        .param("startDate", "2026-01-01")
+                        .param("endDate", "2026-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    private static PrescriptionResponseDto prescription(Long id, Long version) {
+        return PrescriptionResponseDto.builder()
+                .id(id)
+                .patientId(7L)
+                .doctorName("Dr. Aiym")
+                .medication("Amoxicillin")
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30))
+                .isExpired(false)
+                .version(version)
+                .build();
+    }
+
+    private static CursorPageResponseDto<PrescriptionResponseDto> page(PrescriptionResponseDto... items) {
+        return CursorPageResponseDto.<PrescriptionResponseDto>builder()
+                .items(List.of(items))
+                .size(items.length)
+                .hasMore(false)
+                .build();
+    }
+}
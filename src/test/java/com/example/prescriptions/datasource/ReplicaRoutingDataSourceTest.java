@@ -0,0 +1,120 @@
+package com.example.prescriptions.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Replica Routing DataSource Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstConnection = mock(Connection.class);
+    private final Connection secondConnection = mock(Connection.class);
+    private final DataSource primary = dataSource(primaryConnection);
+    private final DataSource first = dataSource(firstConnection);
+    private final DataSource second = dataSource(secondConnection);
+    private final Map<DataSource, Double> lagSeconds = new HashMap<>(Map.of(first, 0.0, second, 0.0));
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Should balance read-only transactions across replicas and send writes to the primary")
+    void getConnection_RoutesByReadOnlyFlag() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+
+        assertSame(primaryConnection, routing.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(firstConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(firstConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while pinned")
+    void getConnection_Pinned() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        try (ReplicaRoutingDataSource.Pin ignored = ReplicaRoutingDataSource.pinToPrimary()) {
+            assertSame(primaryConnection, routing.getConnection());
+            assertTrue(ReplicaRoutingDataSource.isPinnedToPrimary());
+        }
+        assertFalse(ReplicaRoutingDataSource.isPinnedToPrimary());
+        assertNotSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Should skip lagging replicas and fall back to the primary when none is healthy")
+    void getConnection_LaggingReplicas() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        lagSeconds.put(first, 30.0);
+        routing.checkReplicas();
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+
+        lagSeconds.put(second, 30.0);
+        routing.checkReplicas();
+        assertSame(primaryConnection, routing.getConnection());
+
+        lagSeconds.put(first, 1.0);
+        routing.checkReplicas();
+        assertSame(firstConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary and drop a replica that cannot hand out a connection")
+    void getConnection_ReplicaDown() throws SQLException {
+        ReplicaRoutingDataSource routing = routing();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+    }
+
+    private ReplicaRoutingDataSource routing() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", first);
+        replicas.put("replica-2", second);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(5),
+                new SimpleMeterRegistry()) {
+            @Override
+            double replicationLagSeconds(DataSource replica) {
+                return lagSeconds.get(replica);
+            }
+        };
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static DataSource dataSource(Connection connection) {
+        DataSource dataSource = mock(DataSource.class);
+        try {
+            when(dataSource.getConnection()).thenReturn(connection);
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return dataSource;
+    }
+}
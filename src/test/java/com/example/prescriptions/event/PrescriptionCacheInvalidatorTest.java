@@ -0,0 +1,74 @@
+package com.example.prescriptions.event;
+
+import com.example.prescriptions.config.CacheConfiguration;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Prescription Cache Invalidator Tests")
+class PrescriptionCacheInvalidatorTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private PrescriptionCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        when(cacheManager.getCache(CacheConfiguration.PRESCRIPTIONS_CACHE)).thenReturn(cache);
+    }
+
+    @Test
+    @DisplayName("Should evict an updated prescription")
+    void handlePrescriptionUpdated_Evicts() {
+        PrescriptionResponseDto prescription = PrescriptionResponseDto.builder().id(1L).build();
+
+        invalidator.handlePrescriptionUpdated(new PrescriptionUpdatedEvent(this, prescription));
+
+        verify(cache, times(1)).evict(1L);
+    }
+
+    @Test
+    @DisplayName("Should evict a deleted prescription")
+    void handlePrescriptionDeleted_Evicts() {
+        invalidator.handlePrescriptionDeleted(new PrescriptionDeletedEvent(this, 1L));
+
+        verify(cache, times(1)).evict(1L);
+    }
+
+    @Test
+    @DisplayName("Should evict every prescription of a bulk delete")
+    void handlePrescriptionsDeleted_EvictsEach() {
+        invalidator.handlePrescriptionsDeleted(new PrescriptionsDeletedEvent(this, List.of(1L, 2L, 3L)));
+
+        verify(cache, times(1)).evict(1L);
+        verify(cache, times(1)).evict(2L);
+        verify(cache, times(1)).evict(3L);
+    }
+
+    @Test
+    @DisplayName("Should evict every archived prescription")
+    void handlePrescriptionsArchived_EvictsEach() {
+        invalidator.handlePrescriptionsArchived(new PrescriptionsArchivedEvent(this, List.of(4L, 5L)));
+
+        verify(cache, times(1)).evict(4L);
+        verify(cache, times(1)).evict(5L);
+        verifyNoMoreInteractions(cache);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.prescriptions.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Concurrency Limit Filter Tests")
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10),
+            new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+
+    @Test
+    @DisplayName("Should release the permit when a synchronous request finishes")
+    void doFilter_ReleasesAfterSynchronousRequest() throws Exception {
+        assertEquals(200, send(new MockFilterChain()).getStatus());
+        assertEquals(200, send(new MockFilterChain()).getStatus());
+
+        assertEquals(0.0, activeRequests());
+    }
+
+    @Test
+    @DisplayName("Should reject with 503 while the limit is saturated")
+    void doFilter_RejectsWhenSaturated() throws Exception {
+        MockHttpServletRequest streaming = asyncRequest();
+        filter.doFilter(streaming, new MockHttpServletResponse(), startAsync());
+
+        MockHttpServletResponse rejected = send(new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("prescriptions.requests.rejected").counter().count());
+        assertEquals(1.0, activeRequests());
+    }
+
+    @Test
+    @DisplayName("Should hold the permit of a streaming response until its async context completes")
+    void doFilter_HoldsPermitUntilAsyncComplete() throws Exception {
+        MockHttpServletRequest streaming = asyncRequest();
+        filter.doFilter(streaming, new MockHttpServletResponse(), startAsync());
+        assertEquals(503, send(new MockFilterChain()).getStatus());
+
+        ((MockAsyncContext) streaming.getAsyncContext()).complete();
+
+        assertEquals(0.0, activeRequests());
+        assertEquals(200, send(new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should release the permit once when a streaming response fails")
+    void doFilter_ReleasesOnceOnAsyncError() throws Exception {
+        MockHttpServletRequest streaming = asyncRequest();
+        filter.doFilter(streaming, new MockHttpServletResponse(), startAsync());
+        MockAsyncContext asyncContext = (MockAsyncContext) streaming.getAsyncContext();
+
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+        }
+        asyncContext.complete();
+
+        assertEquals(0.0, activeRequests());
+        assertEquals(200, send(new MockFilterChain()).getStatus());
+        assertEquals(0.0, activeRequests());
+    }
+
+    @Test
+    @DisplayName("Should release the permit when the request throws")
+    void doFilter_ReleasesOnException() {
+        FilterChain failing = (request, response) -> {
+            throw new ServletException("Handler failed");
+        };
+
+        assertThrows(ServletException.class, () -> send(failing));
+
+        assertEquals(0.0, activeRequests());
+    }
+
+    private MockHttpServletResponse send(FilterChain chain) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/prescriptions/1"), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest asyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/prescriptions/export");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static FilterChain startAsync() {
+        return (request, response) -> request.startAsync();
+    }
+
+    private double activeRequests() {
+        return meterRegistry.get("prescriptions.requests.active").gauge().value();
+    }
+}
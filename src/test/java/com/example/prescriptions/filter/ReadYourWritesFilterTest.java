@@ -0,0 +1,93 @@
+package com.example.prescriptions.filter;
+
+import com.example.prescriptions.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Read Your Writes Filter Tests")
+class ReadYourWritesFilterTest {
+
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(mock(DataSource.class), Map.of(),
+            Duration.ofSeconds(5), new SimpleMeterRegistry());
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(10));
+
+    @Test
+    @DisplayName("Should pin the client once its write commits")
+    void doFilter_PinsAfterCommittedWrite() throws Exception {
+        MockHttpServletResponse response = send(post("/prescriptions"), transaction(true, HttpServletResponse.SC_CREATED));
+
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("Should not pin the client when its write is rejected and rolled back")
+    void doFilter_DoesNotPinRejectedWrite() throws Exception {
+        MockHttpServletResponse response = send(post("/prescriptions"),
+                transaction(false, HttpServletResponse.SC_UNPROCESSABLE_ENTITY));
+
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+    }
+
+    @Test
+    @DisplayName("Should treat a lookup as a read: never pin for it, but honour an existing pin")
+    void doFilter_TreatsLookupAsRead() throws Exception {
+        MockHttpServletResponse response = send(post("/prescriptions/lookup"), transaction(true, HttpServletResponse.SC_OK));
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+
+        MockHttpServletRequest pinnedLookup = post("/prescriptions/lookup");
+        pinnedLookup.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME,
+                Long.toString(System.currentTimeMillis() + 10_000)));
+        AtomicBoolean pinned = new AtomicBoolean();
+        send(pinnedLookup, (request, res) -> pinned.set(ReplicaRoutingDataSource.isPinnedToPrimary()));
+        assertTrue(pinned.get());
+    }
+
+    /**
+     * Opens a read-write transaction's primary connection and then either commits or rolls back.
+     */
+    private FilterChain transaction(boolean commit, int status) {
+        return (request, response) -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                dataSource.getConnection();
+                if (commit) {
+                    TransactionSynchronizationUtils.triggerAfterCommit();
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            ((HttpServletResponse) response).setStatus(status);
+        };
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+}
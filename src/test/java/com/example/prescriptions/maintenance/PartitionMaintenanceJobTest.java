@@ -0,0 +1,116 @@
+package com.example.prescriptions.maintenance;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "prescriptions.outbox.relay.enabled=false",
+        "prescriptions.archive.enabled=false"
+})
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Partition Maintenance Job Tests")
+class PartitionMaintenanceJobTest {
+    private static final int MONTHS_AHEAD = 6;
+    private static final String DOCTOR = "Dr. Partition";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private PartitionMaintenanceJob job;
+    private YearMonth month;
+    private String partition;
+    private long patientId;
+
+    @BeforeEach
+    void setUp() {
+        // Further ahead than the application creates partitions, so the month starts out in the default partition.
+        job = new PartitionMaintenanceJob(jdbcTemplate, transactionTemplate, MONTHS_AHEAD, 12);
+        month = YearMonth.now().plusMonths(MONTHS_AHEAD);
+        partition = PartitionMaintenanceJob.partitionName(month);
+        jdbcTemplate.update("DELETE FROM prescriptions WHERE doctor_name = ?", DOCTOR);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        patientId = jdbcTemplate.queryForObject(
+                "INSERT INTO patients (first_name, last_name) VALUES ('Partition', 'Test') RETURNING id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Should move rows out of the default partition into a newly created partition")
+    void maintainPartitions_MovesDefaultPartitionRows() {
+        LocalDate issueDate = month.atDay(15);
+        long id = insertPrescription(issueDate);
+        assertEquals(1, countIn("prescriptions_default", id));
+        long statsBefore = monthStats();
+
+        job.maintainPartitions();
+
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+        assertEquals(0, countIn("prescriptions_default", id));
+        assertEquals(1, countIn(partition, id));
+        assertEquals(1, countIn("prescriptions", id));
+        assertEquals(statsBefore, monthStats());
+    }
+
+    @Test
+    @DisplayName("Should create a missing partition when the default partition holds nothing for that month")
+    void maintainPartitions_CreatesEmptyPartition() {
+        job.maintainPartitions();
+
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+        long id = insertPrescription(month.atDay(1));
+        assertEquals(1, countIn(partition, id));
+    }
+
+    @Test
+    @DisplayName("Should drop empty partitions past the retention window and keep ones that still hold rows")
+    void maintainPartitions_DropsOnlyEmptyOldPartitions() {
+        YearMonth emptyMonth = YearMonth.of(2001, 1);
+        YearMonth filledMonth = YearMonth.of(2001, 2);
+        createPartition(emptyMonth);
+        createPartition(filledMonth);
+        insertPrescription(filledMonth.atDay(10));
+
+        job.maintainPartitions();
+
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                PartitionMaintenanceJob.partitionName(emptyMonth)));
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                PartitionMaintenanceJob.partitionName(filledMonth)));
+    }
+
+    private void createPartition(YearMonth partitionMonth) {
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF prescriptions FOR VALUES FROM ('%s') TO ('%s')",
+                PartitionMaintenanceJob.partitionName(partitionMonth), partitionMonth.atDay(1), partitionMonth.plusMonths(1).atDay(1)));
+    }
+
+    private long insertPrescription(LocalDate issueDate) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                        "VALUES (nextval('prescriptions_seq'), ?, ?, 'Amoxicillin', '500mg', ?, ?) RETURNING id",
+                Long.class, patientId, DOCTOR, issueDate, issueDate.plusDays(30));
+    }
+
+    private long countIn(String table, long id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE id = ?", Long.class, id);
+    }
+
+    private long monthStats() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(prescriptions), 0) FROM prescription_stats_current WHERE doctor_name = ? AND issue_month = ?",
+                Long.class, DOCTOR, month.atDay(1));
+    }
+}
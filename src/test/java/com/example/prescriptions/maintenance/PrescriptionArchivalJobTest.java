@@ -0,0 +1,98 @@
+package com.example.prescriptions.maintenance;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import com.example.prescriptions.config.CacheConfiguration;
+import com.example.prescriptions.event.OutboxEventRecorder;
+import com.example.prescriptions.service.PrescriptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "prescriptions.outbox.relay.enabled=false",
+        "prescriptions.archive.enabled=true",
+        "prescriptions.archive.chunk-size=2"
+})
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Prescription Archival Job Tests")
+class PrescriptionArchivalJobTest {
+
+    @Autowired
+    private PrescriptionArchivalJob archivalJob;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long patientId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        patientId = jdbcTemplate.queryForObject(
+                "INSERT INTO patients (first_name, last_name) VALUES ('Archival', 'Test') RETURNING id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Should move long expired prescriptions to the archive, record an event per row and evict them")
+    void archiveExpired_MovesRecordsAndEvicts() {
+        LocalDate longExpired = LocalDate.now().minusDays(200);
+        long first = insertPrescription(longExpired.minusDays(30), longExpired);
+        long second = insertPrescription(longExpired.minusDays(20), longExpired);
+        long third = insertPrescription(longExpired.minusDays(10), longExpired.plusDays(1));
+        long active = insertPrescription(LocalDate.now(), LocalDate.now().plusDays(30));
+        prescriptionService.getById(first);
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRESCRIPTIONS_CACHE);
+        assertNotNull(cache.get(first));
+
+        long archived = archivalJob.archiveExpired();
+
+        assertTrue(archived >= 3);
+        assertEquals(List.of(first, second, third), jdbcTemplate.queryForList(
+                "SELECT id FROM prescriptions_archive WHERE id IN (?, ?, ?, ?) ORDER BY id", Long.class,
+                first, second, third, active));
+        assertEquals(List.of(active), jdbcTemplate.queryForList(
+                "SELECT id FROM prescriptions WHERE id IN (?, ?, ?, ?)", Long.class, first, second, third, active));
+        assertEquals(List.of(first, second, third), jdbcTemplate.queryForList(
+                "SELECT aggregate_id FROM outbox_events WHERE event_type = ? AND aggregate_id IN (?, ?, ?, ?) " +
+                        "ORDER BY aggregate_id", Long.class,
+                OutboxEventRecorder.PRESCRIPTION_ARCHIVED, first, second, third, active));
+        assertNull(cache.get(first));
+    }
+
+    @Test
+    @DisplayName("Should leave prescriptions alone until they have been expired for the configured period")
+    void archiveExpired_KeepsRecentlyExpired() {
+        long recentlyExpired = insertPrescription(LocalDate.now().minusDays(40), LocalDate.now().minusDays(10));
+
+        archivalJob.archiveExpired();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM prescriptions WHERE id = ?", Long.class, recentlyExpired));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_events WHERE aggregate_id = ?", Long.class, recentlyExpired));
+    }
+
+    private long insertPrescription(LocalDate issueDate, LocalDate validUntil) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                        "VALUES (nextval('prescriptions_seq'), ?, 'Dr. Archive', 'Amoxicillin', '500mg', ?, ?) " +
+                        "RETURNING id", Long.class, patientId, issueDate, validUntil);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.prescriptions.maintenance;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the statement triggers of migration V10, the fold and the recompute against a {@code GROUP BY} recount of the
+ * prescriptions this test writes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "prescriptions.outbox.relay.enabled=false",
+        "prescriptions.archive.enabled=false"
+})
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Prescription Statistics Tests")
+class StatisticsRecomputeJobTest {
+    private static final String DOCTOR = "Dr. Stats";
+    private static final String OTHER_DOCTOR = "Dr. Stats Other";
+    // Far enough ahead that no other test writes these valid_until days.
+    private static final LocalDate VALID_UNTIL = LocalDate.of(2091, 1, 1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatisticsRecomputeJob job;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long patientId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM prescriptions WHERE doctor_name LIKE 'Dr. Stats%'");
+        jdbcTemplate.update("DELETE FROM prescription_stats WHERE doctor_name LIKE 'Dr. Stats%'");
+        jdbcTemplate.update("DELETE FROM prescription_stats_deltas WHERE doctor_name LIKE 'Dr. Stats%'");
+        jdbcTemplate.update("DELETE FROM prescription_expiry_stats WHERE valid_until >= ?", VALID_UNTIL);
+        jdbcTemplate.update("DELETE FROM prescription_expiry_stats_deltas WHERE valid_until >= ?", VALID_UNTIL);
+        patientId = jdbcTemplate.queryForObject(
+                "INSERT INTO patients (first_name, last_name) VALUES ('Stats', 'Test') RETURNING id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Should count every row of a multi-row insert")
+    void insert_AddsDeltas() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        jdbcTemplate.update(
+                "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                        "SELECT nextval('prescriptions_seq'), ?, ?, 'Amoxicillin', '500mg', ?, ? FROM generate_series(1, 3)",
+                patientId, DOCTOR, issueDate, VALID_UNTIL);
+
+        assertEquals(3, monthStats(DOCTOR, issueDate));
+        assertEquals(3, expiryStats(VALID_UNTIL));
+        assertStatsMatchRecount();
+    }
+
+    @Test
+    @DisplayName("Should move a count between months, doctors and expiry days when an update changes them")
+    void update_MovesDeltas() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        LocalDate movedIssueDate = LocalDate.of(2002, 3, 10);
+        long id = insertPrescription(DOCTOR, issueDate);
+        insertPrescription(DOCTOR, issueDate);
+
+        // Moves the row out of the current month's partition into the default partition as well.
+        jdbcTemplate.update("UPDATE prescriptions SET doctor_name = ?, issue_date = ?, valid_until = ? WHERE id = ?",
+                OTHER_DOCTOR, movedIssueDate, VALID_UNTIL.plusDays(1), id);
+
+        assertEquals(1, monthStats(DOCTOR, issueDate));
+        assertEquals(1, monthStats(OTHER_DOCTOR, movedIssueDate));
+        assertEquals(1, expiryStats(VALID_UNTIL));
+        assertEquals(1, expiryStats(VALID_UNTIL.plusDays(1)));
+        assertStatsMatchRecount();
+    }
+
+    @Test
+    @DisplayName("Should leave the rollups alone when an update changes no counted column")
+    void update_IgnoresUncountedColumns() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        long id = insertPrescription(DOCTOR, issueDate);
+
+        jdbcTemplate.update("UPDATE prescriptions SET dosage = '250mg', version = version + 1 WHERE id = ?", id);
+
+        assertEquals(1, monthStats(DOCTOR, issueDate));
+        assertEquals(1, expiryStats(VALID_UNTIL));
+        assertStatsMatchRecount();
+    }
+
+    @Test
+    @DisplayName("Should subtract deleted rows")
+    void delete_SubtractsDeltas() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        long id = insertPrescription(DOCTOR, issueDate);
+        insertPrescription(DOCTOR, issueDate);
+
+        jdbcTemplate.update("DELETE FROM prescriptions WHERE id = ?", id);
+
+        assertEquals(1, monthStats(DOCTOR, issueDate));
+        assertEquals(1, expiryStats(VALID_UNTIL));
+        assertStatsMatchRecount();
+    }
+
+    @Test
+    @DisplayName("Should only append deltas on write and move them into the rollups on fold")
+    void fold_MovesDeltasIntoRollups() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        // Uncommitted, so a scheduled fold cannot move these deltas before the assertions.
+        transactionTemplate.executeWithoutResult(status -> {
+            insertPrescription(DOCTOR, issueDate);
+            insertPrescription(DOCTOR, issueDate);
+
+            assertEquals(0, count("SELECT count(*) FROM prescription_stats WHERE doctor_name = ?", DOCTOR));
+            assertEquals(2, count("SELECT sum(delta) FROM prescription_stats_deltas WHERE doctor_name = ?", DOCTOR));
+        });
+
+        job.fold();
+
+        assertEquals(2, count("SELECT prescriptions FROM prescription_stats WHERE doctor_name = ?", DOCTOR));
+        assertEquals(2, count("SELECT prescriptions FROM prescription_expiry_stats WHERE valid_until = ?", VALID_UNTIL));
+        assertEquals(0, count("SELECT count(*) FROM prescription_stats_deltas WHERE doctor_name = ?", DOCTOR));
+        assertEquals(0, count("SELECT count(*) FROM prescription_expiry_stats_deltas WHERE valid_until = ?", VALID_UNTIL));
+        assertStatsMatchRecount();
+    }
+
+    @Test
+    @DisplayName("Should correct drifted, missing and orphaned rollup rows")
+    void recompute_CorrectsDrift() {
+        LocalDate issueDate = YearMonth.now().atDay(1);
+        insertPrescription(DOCTOR, issueDate);
+        insertPrescription(OTHER_DOCTOR, issueDate);
+        job.fold();
+        jdbcTemplate.update("UPDATE prescription_stats SET prescriptions = prescriptions + 5 WHERE doctor_name = ?", DOCTOR);
+        jdbcTemplate.update("DELETE FROM prescription_stats WHERE doctor_name = ?", OTHER_DOCTOR);
+        jdbcTemplate.update("INSERT INTO prescription_expiry_stats (valid_until, prescriptions) VALUES (?, 4)",
+                VALID_UNTIL.plusDays(2));
+
+        assertEquals(3, job.recompute());
+
+        assertStatsMatchRecount();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM prescription_expiry_stats WHERE valid_until = ?", Long.class, VALID_UNTIL.plusDays(2)));
+        assertEquals(0, job.recompute());
+    }
+
+    private void assertStatsMatchRecount() {
+        assertEquals(rows("SELECT doctor_name, medication, date_trunc('month', issue_date)::date AS issue_month, " +
+                        "count(*) AS prescriptions FROM prescriptions WHERE doctor_name LIKE 'Dr. Stats%' " +
+                        "GROUP BY 1, 2, 3 ORDER BY 1, 2, 3"),
+                rows("SELECT doctor_name, medication, issue_month, prescriptions FROM prescription_stats_current " +
+                        "WHERE doctor_name LIKE 'Dr. Stats%' ORDER BY 1, 2, 3"));
+        assertEquals(rows("SELECT valid_until, count(*) AS prescriptions FROM prescriptions " +
+                        "WHERE valid_until >= '" + VALID_UNTIL + "' GROUP BY 1 ORDER BY 1"),
+                rows("SELECT valid_until, prescriptions FROM prescription_expiry_stats_current " +
+                        "WHERE valid_until >= '" + VALID_UNTIL + "' ORDER BY 1"));
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private List<Map<String, Object>> rows(String sql) {
+        return jdbcTemplate.queryForList(sql);
+    }
+
+    private long insertPrescription(String doctor, LocalDate issueDate) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO prescriptions (id, patient_id, doctor_name, medication, dosage, issue_date, valid_until) " +
+                        "VALUES (nextval('prescriptions_seq'), ?, ?, 'Amoxicillin', '500mg', ?, ?) RETURNING id",
+                Long.class, patientId, doctor, issueDate, VALID_UNTIL);
+    }
+
+    private long monthStats(String doctor, LocalDate issueDate) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(prescriptions), 0) FROM prescription_stats_current WHERE doctor_name = ? AND issue_month = ?",
+                Long.class, doctor, YearMonth.from(issueDate).atDay(1));
+    }
+
+    private long expiryStats(LocalDate validUntil) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(prescriptions), 0) FROM prescription_expiry_stats_current WHERE valid_until = ?",
+                Long.class, validUntil);
+    }
+}
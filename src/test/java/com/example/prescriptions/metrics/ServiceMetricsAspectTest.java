@@ -0,0 +1,87 @@
+package com.example.prescriptions.metrics;
+
+import com.example.prescriptions.exception.ClinicalConflictException;
+import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
+import com.example.prescriptions.exception.ValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Service Metrics Aspect Tests")
+class ServiceMetricsAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetricsAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ServiceMetricsAspect(meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getName()).thenReturn("getById");
+    }
+
+    @Test
+    @DisplayName("Should time successful calls with success outcome")
+    void time_Success() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+
+        assertEquals("result", aspect.time(joinPoint));
+
+        assertEquals(1, countFor("success"));
+    }
+
+    @Test
+    @DisplayName("Should tag expected client failures apart from errors and rethrow them")
+    void time_Failures() throws Throwable {
+        when(joinPoint.proceed())
+                .thenThrow(new NotFoundException("Prescription", 1L))
+                .thenThrow(new ValidationException("bad"))
+                .thenThrow(new ClinicalConflictException("Aspirin", Map.of("Warfarin", "interaction")))
+                .thenThrow(new PreconditionFailedException("stale"))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Prescription", 1L))
+                .thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(NotFoundException.class, () -> aspect.time(joinPoint));
+        assertThrows(ValidationException.class, () -> aspect.time(joinPoint));
+        assertThrows(ClinicalConflictException.class, () -> aspect.time(joinPoint));
+        assertThrows(PreconditionFailedException.class, () -> aspect.time(joinPoint));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> aspect.time(joinPoint));
+        assertThrows(IllegalStateException.class, () -> aspect.time(joinPoint));
+
+        assertEquals(1, countFor("not_found"));
+        assertEquals(1, countFor("validation_error"));
+        assertEquals(1, countFor("clinical_conflict"));
+        assertEquals(1, countFor("precondition_failed"));
+        assertEquals(1, countFor("conflict"));
+        assertEquals(1, countFor("error"));
+    }
+
+    private long countFor(String outcome) {
+        return meterRegistry.get(ServiceMetricsAspect.SERVICE_TIMER)
+                .tag("method", "getById")
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
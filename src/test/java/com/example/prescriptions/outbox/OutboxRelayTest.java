@@ -0,0 +1,164 @@
+package com.example.prescriptions.outbox;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.entity.OutboxEvent;
+import com.example.prescriptions.event.OutboxEventRecorder;
+import com.example.prescriptions.repository.OutboxEventRepository;
+import com.example.prescriptions.service.PrescriptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "prescriptions.outbox.relay.enabled=false",
+        "prescriptions.archive.enabled=false"
+})
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Outbox Relay Tests")
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 5;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+    }
+
+    @Test
+    @DisplayName("Should let two relays claim disjoint batches under SKIP LOCKED")
+    void relay_ConcurrentRelaysClaimDisjointBatches() throws Exception {
+        insertEvents(2 * BATCH_SIZE);
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        List<Long> firstIds = Collections.synchronizedList(new ArrayList<>());
+        List<Long> secondIds = Collections.synchronizedList(new ArrayList<>());
+
+        OutboxRelay first = relay(events -> {
+            events.forEach(event -> firstIds.add(event.getId()));
+            firstClaimed.countDown();
+            // Keep the first batch locked until the second relay has claimed its own.
+            assertTrue(secondDone.await(10, TimeUnit.SECONDS));
+        });
+        OutboxRelay second = relay(events -> events.forEach(event -> secondIds.add(event.getId())));
+
+        CompletableFuture<Void> firstRun = CompletableFuture.runAsync(first::relay);
+        assertTrue(firstClaimed.await(10, TimeUnit.SECONDS));
+        second.relay();
+        secondDone.countDown();
+        firstRun.get(10, TimeUnit.SECONDS);
+
+        assertEquals(BATCH_SIZE, firstIds.size());
+        assertEquals(BATCH_SIZE, secondIds.size());
+        Set<Long> overlap = new HashSet<>(firstIds);
+        overlap.retainAll(secondIds);
+        assertTrue(overlap.isEmpty(), () -> "Both relays delivered " + overlap);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should leave events in the outbox when a sink fails and deliver them on the next poll")
+    void relay_FailingSinkRetriesAtLeastOnce() {
+        insertEvents(3);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboxRelay failing = relay(meterRegistry, events -> {
+            throw new IllegalStateException("Broker unavailable");
+        });
+
+        failing.relay();
+
+        assertEquals(3, outboxEventRepository.count());
+        assertEquals(1.0, meterRegistry.get("prescriptions.outbox.failures").counter().count());
+
+        List<Long> delivered = new ArrayList<>();
+        relay(events -> events.forEach(event -> delivered.add(event.getId()))).relay();
+
+        assertEquals(3, delivered.size());
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should store a create event only if the creating transaction commits")
+    void recorder_EventsFollowBusinessTransaction() {
+        long patientId = jdbcTemplate.queryForObject(
+                "INSERT INTO patients (first_name, last_name) VALUES ('Outbox', 'Test') RETURNING id", Long.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        PrescriptionResponseDto rolledBack = transactionTemplate.execute(status -> {
+            PrescriptionResponseDto created = prescriptionService.create(request(patientId));
+            status.setRollbackOnly();
+            return created;
+        });
+
+        assertEquals(0, outboxEventRepository.count());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM prescriptions WHERE id = ?", Long.class, rolledBack.getId()));
+
+        PrescriptionResponseDto committed = transactionTemplate.execute(status -> prescriptionService.create(request(patientId)));
+
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertEquals(1, events.size());
+        assertEquals(committed.getId(), events.get(0).getAggregateId());
+        assertEquals(OutboxEventRecorder.PRESCRIPTION_CREATED, events.get(0).getEventType());
+    }
+
+    private OutboxRelay relay(OutboxSink sink) {
+        return relay(new SimpleMeterRegistry(), sink);
+    }
+
+    private OutboxRelay relay(SimpleMeterRegistry meterRegistry, OutboxSink sink) {
+        StaticListableBeanFactory sinks = new StaticListableBeanFactory(Map.of("sink", sink));
+        return new OutboxRelay(outboxEventRepository, sinks.getBeanProvider(OutboxSink.class), transactionManager,
+                meterRegistry, BATCH_SIZE, 1);
+    }
+
+    private void insertEvents(int count) {
+        jdbcTemplate.update("INSERT INTO outbox_events (id, aggregate_id, event_type, payload, created_at) " +
+                "SELECT 1000000 + g, g, 'PrescriptionCreated', '{}', now() FROM generate_series(1, ?) g", count);
+    }
+
+    private static PrescriptionRequestDto request(long patientId) {
+        return PrescriptionRequestDto.builder()
+                .patientId(patientId)
+                .doctorName("Dr. Aiym")
+                .medication("Outboxamycin")
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30))
+                .build();
+    }
+}
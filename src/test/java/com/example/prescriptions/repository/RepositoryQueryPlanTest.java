@@ -0,0 +1,239 @@
+package com.example.prescriptions.repository;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every repository query through Hibernate, captures the SQL it sends and EXPLAINs that statement, so a change
+ * to a query or to the mapping is checked against the indexes exactly as it will run.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Repository Query Plan Tests")
+class RepositoryQueryPlanTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 1, 31);
+    private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private PrescriptionStatsRepository prescriptionStatsRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            });
+        }
+    }
+
+    @FunctionalInterface
+    interface RepositoryCall {
+        void invoke(RepositoryQueryPlanTest test);
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("PrescriptionRepository.findSnapshotById",
+                        test -> test.prescriptionRepository.findSnapshotById(1L)),
+                query("PrescriptionRepository.findSnapshotsByIdIn",
+                        test -> test.prescriptionRepository.findSnapshotsByIdIn(List.of(1L, 2L, 3L, 4L))),
+                query("PrescriptionRepository.findByPatientIdIn",
+                        test -> test.prescriptionRepository.findByPatientIdIn(List.of(1L, 2L, 3L, 4L), 101)),
+                query("PrescriptionRepository.findByPatientId",
+                        test -> test.prescriptionRepository.findByPatientId(1L)),
+                query("PrescriptionRepository.findPageByPatientId",
+                        test -> test.prescriptionRepository.findPageByPatientId(1L, 0L, PageRequest.of(0, 51))),
+                query("PrescriptionRepository.findVersionPageByPatientId",
+                        test -> test.prescriptionRepository.findVersionPageByPatientId(1L, 0L, PageRequest.of(0, 51))),
+                query("PrescriptionRepository.findByDoctorName",
+                        test -> test.prescriptionRepository.findByDoctorName("Dr. Aiym")),
+                query("PrescriptionRepository.findPageByDoctorName",
+                        test -> test.prescriptionRepository.findPageByDoctorName("Dr. Aiym", 0L, PageRequest.of(0, 51))),
+                query("PrescriptionRepository.findByIssueDateBetween",
+                        test -> test.prescriptionRepository.findByIssueDateBetween(FROM, TO)),
+                query("PrescriptionRepository.findPageByIssueDateBetween",
+                        test -> test.prescriptionRepository.findPageByIssueDateBetween(FROM, TO, FROM, 0L,
+                                PageRequest.of(0, 51))),
+                query("PrescriptionRepository.streamByIssueDateBetween", test -> {
+                    try (Stream<?> prescriptions = test.prescriptionRepository.streamByIssueDateBetween(FROM, TO)) {
+                        prescriptions.count();
+                    }
+                }),
+                query("PrescriptionRepository.searchIds",
+                        test -> test.prescriptionRepository.searchIds("moxi", "%moxi%", "moxi%", 51, 0)),
+                query("PrescriptionRepository.findActiveMedications",
+                        test -> test.prescriptionRepository.findActiveMedications(1L, FROM, 0L)),
+                query("PrescriptionRepository.findByPatientIdAndDoctorName",
+                        test -> test.prescriptionRepository.findByPatientIdAndDoctorName(1L, "Dr. Aiym")),
+                query("PrescriptionRepository.updateIfVersionMatches",
+                        test -> test.prescriptionRepository.updateIfVersionMatches(1L, 0L, 1L, "Dr. Aiym",
+                                "Amoxicillin", "500mg", FROM, TO)),
+                query("PrescriptionRepository.deleteDirectlyById",
+                        test -> test.prescriptionRepository.deleteDirectlyById(1L)),
+                query("PrescriptionRepository.deleteAllByIdReturningIds",
+                        test -> test.prescriptionRepository.deleteAllByIdReturningIds(List.of(1L, 2L))),
+                query("PrescriptionRepository.deleteExpiredBefore",
+                        test -> test.prescriptionRepository.deleteExpiredBefore(FROM, 1000)),
+                query("PrescriptionRepository.archiveExpiredBefore",
+                        test -> test.prescriptionRepository.archiveExpiredBefore(FROM, 1000)),
+                query("PrescriptionStatsRepository.countByDoctor",
+                        test -> test.prescriptionStatsRepository.countByDoctor(FROM, TO, PageRequest.of(0, 10))),
+                query("PrescriptionStatsRepository.countByMedication",
+                        test -> test.prescriptionStatsRepository.countByMedication(FROM, TO, PageRequest.of(0, 10))),
+                query("PrescriptionStatsRepository.countByMonth",
+                        test -> test.prescriptionStatsRepository.countByMonth(FROM, TO)),
+                query("PrescriptionStatsRepository.countValidOn",
+                        test -> test.prescriptionStatsRepository.countValidOn(FROM)),
+                query("PatientRepository.findExistingIds",
+                        test -> test.patientRepository.findExistingIds(List.of(1L, 2L))),
+                query("PatientRepository.lockForPrescriptionWrites",
+                        test -> test.patientRepository.lockForPrescriptionWrites(1L)),
+                query("OutboxEventRepository.findBatchForDelivery",
+                        test -> test.outboxEventRepository.findBatchForDelivery(500))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    @DisplayName("Repository query should be served by an index")
+    void testQueryDoesNotPlanSequentialScan(String query, RepositoryCall call) throws SQLException {
+
+        List<String> statements = capture(call);
+
+        assertFalse(statements.isEmpty(), () -> query + " sent no SQL");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("Seq Scan"), () -> query + " plans a sequential scan:\n" + sql + "\n" + plan);
+        }
+    }
+
+    @Test
+    @DisplayName("Date range query should only read the monthly partitions it covers")
+    void testDateRangeQueryPrunesPartitions() throws SQLException {
+        YearMonth month = YearMonth.now();
+        List<String> statements = capture(test -> {
+            try (Stream<?> prescriptions = test.prescriptionRepository.streamByIssueDateBetween(
+                    month.atDay(1), month.atEndOfMonth())) {
+                prescriptions.count();
+            }
+        });
+        assertEquals(1, statements.size());
+
+        String plan = explain(statements.get(0), "'" + month.atDay(1) + "'", "'" + month.atEndOfMonth() + "'");
+
+        assertTrue(plan.contains(partitionName(month)), () -> "Expected a scan of " + partitionName(month) + ":\n" + plan);
+        assertFalse(plan.contains(partitionName(month.minusMonths(1))), () -> "Previous month not pruned:\n" + plan);
+        assertFalse(plan.contains(partitionName(month.plusMonths(1))), () -> "Next month not pruned:\n" + plan);
+        assertFalse(plan.contains("prescriptions_default"), () -> "Default partition not pruned:\n" + plan);
+    }
+
+    private static Arguments query(String name, RepositoryCall call) {
+        return Arguments.of(name, call);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("prescriptions_%d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private List<String> capture(RepositoryCall call) {
+        STATEMENTS.clear();
+        call.invoke(this);
+        return List.copyOf(STATEMENTS);
+    }
+
+    /**
+     * Prepares the captured statement and explains its execution. Without {@code parameters} every bind value is
+     * NULL and the generic plan is shown with partition pruning off, so each partition's access path is visible;
+     * with them the custom plan for those values is shown.
+     */
+    private String explain(String sql, String... parameters) throws SQLException {
+        int parameterCount = 0;
+        StringBuilder prepared = new StringBuilder();
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameterCount);
+            } else {
+                prepared.append(c);
+            }
+        }
+        List<String> values = parameters.length > 0
+                ? List.of(parameters)
+                : Collections.nCopies(parameterCount, "NULL");
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            // Small test tables always favour a sequential scan; disabling it makes the planner
+            // fall back to one only when no index can serve the query.
+            statement.execute("SET LOCAL enable_seqscan = off");
+            if (parameters.length == 0) {
+                statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+                statement.execute("SET LOCAL enable_partition_pruning = off");
+            } else {
+                statement.execute("SET LOCAL plan_cache_mode = force_custom_plan");
+            }
+            statement.execute("PREPARE plan_test AS " + prepared);
+            try {
+                StringBuilder plan = new StringBuilder();
+                String execute = values.isEmpty() ? "EXECUTE plan_test" : "EXECUTE plan_test(" + String.join(", ", values) + ")";
+                try (ResultSet resultSet = statement.executeQuery("EXPLAIN " + execute)) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                connection.rollback();
+                statement.execute("DEALLOCATE plan_test");
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.prescriptions.service;
+
+import com.example.prescriptions.EmbeddedPostgresInitializer;
+import com.example.prescriptions.config.CacheConfiguration;
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.PrescriptionRequestDto;
+import com.example.prescriptions.event.OutboxEventRecorder;
+import com.example.prescriptions.exception.ClinicalConflictException;
+import com.example.prescriptions.service.impl.PrescriptionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the service against embedded Postgres with its real transactions, cache and outbox listeners.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "prescriptions.outbox.relay.enabled=false",
+        "prescriptions.archive.enabled=false"
+})
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+@DisplayName("Prescription Service Integration Tests")
+class PrescriptionServiceIntegrationTest {
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long patientId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        patientId = jdbcTemplate.queryForObject(
+                "INSERT INTO patients (first_name, last_name) VALUES ('Integration', 'Test') RETURNING id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Should evict and record a delete event for every prescription a bulk delete removed")
+    void deleteByIds_EvictsAndRecordsEachDeletedId() {
+        long first = prescriptionService.create(request("Amoxicillin")).getId();
+        long second = prescriptionService.create(request("Cetirizine")).getId();
+        prescriptionService.getById(first);
+        prescriptionService.getById(second);
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRESCRIPTIONS_CACHE);
+        assertNotNull(cache.get(first));
+        assertNotNull(cache.get(second));
+        jdbcTemplate.update("DELETE FROM outbox_events");
+
+        long deleted = prescriptionService.deleteByIds(List.of(first, second, Long.MAX_VALUE, first));
+
+        assertEquals(2, deleted);
+        assertNull(cache.get(first));
+        assertNull(cache.get(second));
+        List<Long> deletedEvents = jdbcTemplate.queryForList(
+                "SELECT aggregate_id FROM outbox_events WHERE event_type = ? ORDER BY aggregate_id", Long.class,
+                OutboxEventRecorder.PRESCRIPTION_DELETED);
+        assertEquals(List.of(first, second), deletedEvents);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM prescriptions WHERE id IN (?, ?)", Long.class, first, second));
+    }
+
+    @Test
+    @DisplayName("Should let only one of two concurrent interacting creates for a patient through")
+    void create_SerializesClinicalChecksPerPatient() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int attempt = 0; attempt < 10; attempt++) {
+                setUp();
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Boolean> warfarin = executor.submit(() -> tryCreate(start, "Warfarin"));
+                Future<Boolean> aspirin = executor.submit(() -> tryCreate(start, "Aspirin"));
+
+                assertTrue(warfarin.get(30, TimeUnit.SECONDS) ^ aspirin.get(30, TimeUnit.SECONDS));
+                assertEquals(1, jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM prescriptions WHERE patient_id = ?", Long.class, patientId));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should save every chunk of two concurrent batches that share statistics groups in opposite order")
+    void createBatch_ConcurrentBatchesDoNotConflictOnStatistics() throws Exception {
+        String doctor = "Dr. Concurrent Batch";
+        jdbcTemplate.update("DELETE FROM prescriptions WHERE doctor_name = ?", doctor);
+        List<String> medications = List.of("Batch Med A", "Batch Med B", "Batch Med C", "Batch Med D", "Batch Med E");
+        int size = 2 * PrescriptionServiceImpl.BATCH_CHUNK_SIZE;
+        List<Long> patients = jdbcTemplate.queryForList(
+                "INSERT INTO patients (first_name, last_name) SELECT 'Batch', 'Test' FROM generate_series(1, ?) RETURNING id",
+                Long.class, 2 * size);
+        List<PrescriptionRequestDto> ascending = new ArrayList<>(size);
+        List<PrescriptionRequestDto> descending = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // One patient per item keeps the clinical checks out of the way; runs of one medication make each insert
+            // statement touch a few groups, the first batch in ascending and the second in descending order.
+            int run = i * medications.size() / size;
+            ascending.add(batchItem(patients.get(i), doctor, medications, run));
+            descending.add(batchItem(patients.get(size + i), doctor, medications, medications.size() - 1 - run));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier start = new CyclicBarrier(2);
+            Future<BatchCreateResponseDto> first = executor.submit(() -> createBatch(start, ascending));
+            Future<BatchCreateResponseDto> second = executor.submit(() -> createBatch(start, descending));
+
+            assertEquals(0, first.get(60, TimeUnit.SECONDS).getFailed());
+            assertEquals(0, second.get(60, TimeUnit.SECONDS).getFailed());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(
+                jdbcTemplate.queryForList("SELECT medication, count(*) AS prescriptions FROM prescriptions " +
+                        "WHERE doctor_name = ? GROUP BY 1 ORDER BY 1", doctor),
+                jdbcTemplate.queryForList("SELECT medication, sum(prescriptions)::bigint AS prescriptions FROM prescription_stats_current " +
+                        "WHERE doctor_name = ? GROUP BY 1 ORDER BY 1", doctor));
+    }
+
+    private BatchCreateResponseDto createBatch(CyclicBarrier start, List<PrescriptionRequestDto> dtos) throws Exception {
+        start.await(10, TimeUnit.SECONDS);
+        return prescriptionService.createBatch(dtos);
+    }
+
+    private PrescriptionRequestDto batchItem(long patient, String doctor, List<String> medications, int medication) {
+        return PrescriptionRequestDto.builder()
+                .patientId(patient)
+                .doctorName(doctor)
+                .medication(medications.get(medication))
+                .dosage("1 tablet daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30 + medication))
+                .build();
+    }
+
+    private boolean tryCreate(CyclicBarrier start, String medication) throws Exception {
+        start.await(10, TimeUnit.SECONDS);
+        try {
+            prescriptionService.create(request(medication));
+            return true;
+        } catch (ClinicalConflictException ex) {
+            return false;
+        }
+    }
+
+    private PrescriptionRequestDto request(String medication) {
+        return PrescriptionRequestDto.builder()
+                .patientId(patientId)
+                .doctorName("Dr. Aiym")
+                .medication(medication)
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30))
+                .build();
+    }
+}
@@ -1,31 +1,65 @@
 package com.example.prescriptions.service;
 
+import com.example.prescriptions.dto.BatchCreateResponseDto;
+import com.example.prescriptions.dto.BatchItemResultDto;
+import com.example.prescriptions.dto.CursorPageResponseDto;
+import com.example.prescriptions.dto.LookupRequestDto;
+import com.example.prescriptions.dto.LookupResponseDto;
+import com.example.prescriptions.dto.PrescriptionPatchDto;
 import com.example.prescriptions.dto.PrescriptionRequestDto;
 import com.example.prescriptions.dto.PrescriptionResponseDto;
+import com.example.prescriptions.dto.PrescriptionSnapshot;
+import com.example.prescriptions.dto.PrescriptionVersion;
 import com.example.prescriptions.entity.Patient;
 import com.example.prescriptions.entity.Prescription;
+import com.example.prescriptions.event.PrescriptionsDeletedEvent;
+import com.example.prescriptions.exception.ClinicalConflictException;
 import com.example.prescriptions.exception.NotFoundException;
+import com.example.prescriptions.exception.PreconditionFailedException;
 import com.example.prescriptions.exception.ValidationException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.example.prescriptions.repository.PatientRepository;
 import com.example.prescriptions.repository.PrescriptionRepository;
+import com.example.prescriptions.service.impl.InteractionMatrix;
+import com.example.prescriptions.service.impl.PageCursor;
+import com.example.prescriptions.service.impl.PatientExistenceIndex;
 import com.example.prescriptions.service.impl.PrescriptionServiceImpl;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +72,24 @@ class PrescriptionServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private PatientExistenceIndex patientExistenceIndex;
+
+    @Mock
+    private InteractionMatrix interactionMatrix;
+
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private PrescriptionServiceImpl prescriptionService;
 
@@ -94,10 +143,27 @@ class PrescriptionServiceTest {
         assertEquals("500mg twice daily", result.getDosage());
 
         verify(patientRepository, times(1)).existsById(1L);
+        verify(patientExistenceIndex, times(1)).add(1L);
         verify(prescriptionRepository, times(1)).save(any(Prescription.class));
         verify(eventPublisher, times(1)).publishEvent(any());
     }
 
+    @Test
+    @DisplayName("Should skip the patient existence query when the index knows the patient")
+    void testCreatePrescription_PatientIndexHit() {
+
+        when(patientExistenceIndex.contains(1L)).thenReturn(true);
+        when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
+
+
+        PrescriptionResponseDto result = prescriptionService.create(validRequestDto);
+
+
+        assertEquals(1L, result.getId());
+        verify(patientRepository, never()).existsById(anyLong());
+        verify(patientExistenceIndex, never()).add(anyLong());
+    }
+
     @Test
     @DisplayName("Should throw NotFoundException when patient does not exist")
     void testCreatePrescription_PatientNotFound() {
@@ -117,6 +183,28 @@ class PrescriptionServiceTest {
         verify(eventPublisher, never()).publishEvent(any());
     }
 
+    @Test
+    @DisplayName("Should reject a medication that interacts with an active prescription")
+    void testCreatePrescription_ClinicalConflict() {
+
+        when(patientExistenceIndex.contains(1L)).thenReturn(true);
+        when(prescriptionRepository.findActiveMedications(1L, LocalDate.now(), 0L)).thenReturn(List.of("Warfarin"));
+        when(interactionMatrix.conflicts("Amoxicillin", List.of("Warfarin")))
+                .thenReturn(Map.of("Warfarin", InteractionMatrix.INTERACTION));
+
+
+        ClinicalConflictException exception = assertThrows(
+                ClinicalConflictException.class,
+                () -> prescriptionService.create(validRequestDto)
+        );
+
+        assertEquals(InteractionMatrix.INTERACTION, exception.getConflicts().get("Warfarin"));
+        verify(prescriptionRepository, never()).save(any(Prescription.class));
+        InOrder inOrder = inOrder(patientRepository, prescriptionRepository);
+        inOrder.verify(patientRepository).lockForPrescriptionWrites(1L);
+        inOrder.verify(prescriptionRepository).findActiveMedications(1L, LocalDate.now(), 0L);
+    }
+
     @Test
     @DisplayName("Should throw ValidationException when validUntil is before issueDate")
     void testCreatePrescription_InvalidDates() {
@@ -141,7 +229,7 @@ class PrescriptionServiceTest {
     @DisplayName("Should retrieve prescription by ID successfully")
     void testGetById_Success() {
 
-        when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
+        when(prescriptionRepository.findSnapshotById(1L)).thenReturn(Optional.of(toSnapshot(prescription)));
 
 
         PrescriptionResponseDto result = prescriptionService.getById(1L);
@@ -151,14 +239,14 @@ class PrescriptionServiceTest {
         assertEquals(1L, result.getId());
         assertEquals("Dr. Aiym", result.getDoctorName());
 
-        verify(prescriptionRepository, times(1)).findById(1L);
+        verify(prescriptionRepository, times(1)).findSnapshotById(1L);
     }
 
     @Test
     @DisplayName("Should throw NotFoundException when prescription does not exist")
     void testGetById_NotFound() {
 
-        when(prescriptionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(prescriptionRepository.findSnapshotById(1L)).thenReturn(Optional.empty());
 
 
         NotFoundException exception = assertThrows(
@@ -169,7 +257,7 @@ class PrescriptionServiceTest {
         assertTrue(exception.getMessage().contains("Prescription"));
         assertTrue(exception.getMessage().contains("1"));
 
-        verify(prescriptionRepository, times(1)).findById(1L);
+        verify(prescriptionRepository, times(1)).findSnapshotById(1L);
     }
 
     @Test
@@ -186,7 +274,7 @@ class PrescriptionServiceTest {
                 .validUntil(LocalDate.now().plusDays(60))
                 .build();
 
-        List<Prescription> prescriptions = Arrays.asList(prescription, prescription2);
+        List<PrescriptionSnapshot> prescriptions = Arrays.asList(toSnapshot(prescription), toSnapshot(prescription2));
         when(prescriptionRepository.findByPatientId(1L)).thenReturn(prescriptions);
 
 
@@ -221,7 +309,7 @@ class PrescriptionServiceTest {
 
         when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
         when(patientRepository.existsById(1L)).thenReturn(true);
-        when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
+        when(prescriptionRepository.saveAndFlush(any(Prescription.class))).thenReturn(prescription);
 
         validRequestDto.setMedication("Paracetamol");
         validRequestDto.setDosage("1000mg three times daily");
@@ -234,7 +322,8 @@ class PrescriptionServiceTest {
 
         verify(prescriptionRepository, times(1)).findById(1L);
         verify(patientRepository, times(1)).existsById(1L);
-        verify(prescriptionRepository, times(1)).save(any(Prescription.class));
+        verify(prescriptionRepository, times(1)).saveAndFlush(any(Prescription.class));
+        verify(eventPublisher, times(1)).publishEvent(any());
     }
 
     @Test
@@ -252,29 +341,98 @@ class PrescriptionServiceTest {
         assertTrue(exception.getMessage().contains("Prescription"));
 
         verify(prescriptionRepository, times(1)).findById(1L);
-        verify(prescriptionRepository, never()).save(any());
+        verify(prescriptionRepository, never()).saveAndFlush(any());
     }
 
     @Test
-    @DisplayName("Should delete prescription successfully")
-    void testDeletePrescription_Success() {
+    @DisplayName("Should update with a single conditional statement when a version is given")
+    void testUpdatePrescription_IfMatch() {
+
+        when(patientExistenceIndex.contains(1L)).thenReturn(true);
+        when(prescriptionRepository.updateIfVersionMatches(eq(1L), eq(3L), eq(1L), any(), any(), any(), any(), any()))
+                .thenReturn(1);
+
+
+        PrescriptionResponseDto result = prescriptionService.update(1L, validRequestDto, 3L);
+
 
+        assertEquals(1L, result.getId());
+        assertEquals(4L, result.getVersion());
+        verify(prescriptionRepository, never()).findById(anyLong());
+        verify(prescriptionRepository, never()).saveAndFlush(any());
+        verify(eventPublisher, times(1)).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a conditional update when the version has changed")
+    void testUpdatePrescription_IfMatchStale() {
+
+        when(patientExistenceIndex.contains(1L)).thenReturn(true);
+        when(prescriptionRepository.updateIfVersionMatches(eq(1L), eq(3L), eq(1L), any(), any(), any(), any(), any()))
+                .thenReturn(0);
         when(prescriptionRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(prescriptionRepository).deleteById(1L);
+
+
+        assertThrows(PreconditionFailedException.class,
+                () -> prescriptionService.update(1L, validRequestDto, 3L));
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should patch only the given fields")
+    void testPatchPrescription_DosageOnly() {
+
+        prescription.setVersion(2L);
+        when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
+        when(prescriptionRepository.saveAndFlush(prescription)).thenReturn(prescription);
+
+        PrescriptionPatchDto patchDto = PrescriptionPatchDto.builder().dosage("250mg once daily").build();
+
+
+        PrescriptionResponseDto result = prescriptionService.patch(1L, patchDto, 2L);
+
+
+        assertEquals("250mg once daily", result.getDosage());
+        assertEquals("Amoxicillin", result.getMedication());
+        verify(patientExistenceIndex, never()).contains(anyLong());
+        verify(patientRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject a patch when If-Match names an older version")
+    void testPatchPrescription_StaleVersion() {
+
+        prescription.setVersion(5L);
+        when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
+
+
+        assertThrows(PreconditionFailedException.class,
+                () -> prescriptionService.patch(1L, PrescriptionPatchDto.builder().dosage("1mg").build(), 4L));
+
+        verify(prescriptionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Should delete prescription with a single statement")
+    void testDeletePrescription_Success() {
+
+        when(prescriptionRepository.deleteDirectlyById(1L)).thenReturn(1);
 
 
         prescriptionService.delete(1L);
 
 
-        verify(prescriptionRepository, times(1)).existsById(1L);
-        verify(prescriptionRepository, times(1)).deleteById(1L);
+        verify(prescriptionRepository, times(1)).deleteDirectlyById(1L);
+        verify(prescriptionRepository, never()).existsById(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(any());
     }
 
     @Test
     @DisplayName("Should throw NotFoundException when deleting non-existent prescription")
     void testDeletePrescription_NotFound() {
 
-        when(prescriptionRepository.existsById(1L)).thenReturn(false);
+        when(prescriptionRepository.deleteDirectlyById(1L)).thenReturn(0);
 
 
         NotFoundException exception = assertThrows(
@@ -284,15 +442,93 @@ class PrescriptionServiceTest {
 
         assertTrue(exception.getMessage().contains("Prescription"));
 
-        verify(prescriptionRepository, times(1)).existsById(1L);
-        verify(prescriptionRepository, never()).deleteById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should delete the existing prescriptions of a bulk delete and ignore missing ids")
+    void testDeleteByIds_PartiallyMissing() {
+
+        when(prescriptionRepository.deleteAllByIdReturningIds(new LinkedHashSet<>(List.of(1L, 2L, 99L))))
+                .thenReturn(List.of(1L, 2L));
+
+
+        long deleted = prescriptionService.deleteByIds(List.of(1L, 2L, 99L));
+
+
+        assertEquals(2, deleted);
+        ArgumentCaptor<PrescriptionsDeletedEvent> event = ArgumentCaptor.forClass(PrescriptionsDeletedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(List.of(1L, 2L), event.getValue().getPrescriptionIds());
+    }
+
+    @Test
+    @DisplayName("Should send a duplicated id to the database once and count it once")
+    void testDeleteByIds_DuplicateId() {
+
+        when(prescriptionRepository.deleteAllByIdReturningIds(new LinkedHashSet<>(List.of(1L, 2L))))
+                .thenReturn(List.of(1L, 2L));
+
+
+        long deleted = prescriptionService.deleteByIds(List.of(1L, 2L, 1L));
+
+
+        assertEquals(2, deleted);
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(prescriptionRepository, times(1)).deleteAllByIdReturningIds(ids.capture());
+        assertEquals(List.of(1L, 2L), List.copyOf(ids.getValue()));
+    }
+
+    @Test
+    @DisplayName("Should not publish an event when no id of a bulk delete exists")
+    void testDeleteByIds_NoneFound() {
+
+        when(prescriptionRepository.deleteAllByIdReturningIds(any())).thenReturn(List.of());
+
+
+        long deleted = prescriptionService.deleteByIds(List.of(98L, 99L));
+
+
+        assertEquals(0, deleted);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should purge expired prescriptions chunk by chunk until a chunk comes back short")
+    void testPurgeExpiredBefore_Chunks() {
+
+        LocalDate cutoff = LocalDate.now().minusYears(1);
+        List<Long> fullChunk = LongStream.rangeClosed(1, PrescriptionServiceImpl.PURGE_CHUNK_SIZE).boxed().toList();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(prescriptionRepository.deleteExpiredBefore(cutoff, PrescriptionServiceImpl.PURGE_CHUNK_SIZE))
+                .thenReturn(fullChunk)
+                .thenReturn(List.of(5001L, 5002L));
+
+
+        long purged = prescriptionService.purgeExpiredBefore(cutoff);
+
+
+        assertEquals(PrescriptionServiceImpl.PURGE_CHUNK_SIZE + 2L, purged);
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(eventPublisher, times(2)).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a purge cutoff in the future")
+    void testPurgeExpiredBefore_FutureCutoff() {
+
+        assertThrows(ValidationException.class,
+                () -> prescriptionService.purgeExpiredBefore(LocalDate.now().plusDays(1)));
+
+        verify(prescriptionRepository, never()).deleteExpiredBefore(any(), anyInt());
     }
 
     @Test
     @DisplayName("Should retrieve prescriptions by doctor name")
     void testGetByDoctorName_Success() {
 
-        List<Prescription> prescriptions = Arrays.asList(prescription);
+        List<PrescriptionSnapshot> prescriptions = Arrays.asList(toSnapshot(prescription));
         when(prescriptionRepository.findByDoctorName("Dr. Aiym")).thenReturn(prescriptions);
 
 
@@ -311,7 +547,7 @@ class PrescriptionServiceTest {
 
         LocalDate startDate = LocalDate.now().minusDays(10);
         LocalDate endDate = LocalDate.now().plusDays(10);
-        List<Prescription> prescriptions = Arrays.asList(prescription);
+        List<PrescriptionSnapshot> prescriptions = Arrays.asList(toSnapshot(prescription));
         when(prescriptionRepository.findByIssueDateBetween(startDate, endDate)).thenReturn(prescriptions);
 
 
@@ -347,7 +583,7 @@ class PrescriptionServiceTest {
     void testGetById_ExpiredPrescription() {
 
         prescription.setValidUntil(LocalDate.now().minusDays(1));
-        when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
+        when(prescriptionRepository.findSnapshotById(1L)).thenReturn(Optional.of(toSnapshot(prescription)));
 
 
         PrescriptionResponseDto result = prescriptionService.getById(1L);
@@ -356,7 +592,7 @@ class PrescriptionServiceTest {
         assertNotNull(result);
         assertTrue(result.getIsExpired());
 
-        verify(prescriptionRepository, times(1)).findById(1L);
+        verify(prescriptionRepository, times(1)).findSnapshotById(1L);
     }
 
     @Test
@@ -364,7 +600,7 @@ class PrescriptionServiceTest {
     void testGetById_ActivePrescription() {
 
         prescription.setValidUntil(LocalDate.now().plusDays(10));
-        when(prescriptionRepository.findById(1L)).thenReturn(Optional.of(prescription));
+        when(prescriptionRepository.findSnapshotById(1L)).thenReturn(Optional.of(toSnapshot(prescription)));
 
 
         PrescriptionResponseDto result = prescriptionService.getById(1L);
@@ -373,6 +609,414 @@ class PrescriptionServiceTest {
         assertNotNull(result);
         assertFalse(result.getIsExpired());
 
-        verify(prescriptionRepository, times(1)).findById(1L);
+        verify(prescriptionRepository, times(1)).findSnapshotById(1L);
+    }
+
+    @Test
+    @DisplayName("Should create valid batch items and report invalid ones individually")
+    void testCreateBatch_MixedResults() {
+
+        PrescriptionRequestDto unknownPatientDto = PrescriptionRequestDto.builder()
+                .patientId(99L)
+                .doctorName("Dr. Aiym")
+                .medication("Ibuprofen")
+                .dosage("200mg as needed")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(10))
+                .build();
+
+        when(patientRepository.findExistingIds(anyList())).thenReturn(List.of(1L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(prescriptionRepository.saveAll(anyList())).thenReturn(List.of(prescription));
+
+
+        BatchCreateResponseDto result = prescriptionService.createBatch(List.of(validRequestDto, unknownPatientDto));
+
+
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getFailed());
+        assertEquals(BatchItemResultDto.Status.CREATED, result.getResults().get(0).getStatus());
+        assertEquals(1L, result.getResults().get(0).getPrescription().getId());
+        assertEquals(BatchItemResultDto.Status.FAILED, result.getResults().get(1).getStatus());
+        assertTrue(result.getResults().get(1).getError().contains("Patient"));
+
+        verify(patientRepository, times(1)).findExistingIds(anyList());
+        verify(patientRepository, never()).existsById(anyLong());
+        verify(prescriptionRepository, times(1)).saveAll(anyList());
+        verify(eventPublisher, times(1)).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should fail batch items that conflict with active prescriptions or earlier items of the batch")
+    void testCreateBatch_ClinicalConflicts() {
+
+        InteractionMatrix matrix = new InteractionMatrix(new ClassPathResource("interactions.csv"), new SimpleMeterRegistry());
+        when(interactionMatrix.conflicts(anyString(), anyCollection())).thenAnswer(invocation ->
+                matrix.conflicts(invocation.getArgument(0), invocation.getArgument(1)));
+        when(patientRepository.findExistingIds(anyList())).thenReturn(List.of(1L, 2L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(prescriptionRepository.findActiveMedications(1L, LocalDate.now(), 0L)).thenReturn(List.of("Warfarin"));
+        when(prescriptionRepository.findActiveMedications(2L, LocalDate.now(), 0L)).thenReturn(List.of());
+        when(prescriptionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<PrescriptionRequestDto> dtos = List.of(
+                batchItem(2L, "Lisinopril"),
+                batchItem(1L, "Aspirin"),
+                batchItem(1L, "Amoxicillin"),
+                batchItem(2L, "Losartan"),
+                batchItem(1L, "amoxicillin"));
+
+
+        BatchCreateResponseDto result = prescriptionService.createBatch(dtos);
+
+
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getFailed());
+        List<BatchItemResultDto.Status> statuses = result.getResults().stream()
+                .map(BatchItemResultDto::getStatus)
+                .toList();
+        assertEquals(List.of(BatchItemResultDto.Status.CREATED, BatchItemResultDto.Status.FAILED,
+                BatchItemResultDto.Status.CREATED, BatchItemResultDto.Status.FAILED,
+                BatchItemResultDto.Status.FAILED), statuses);
+        assertTrue(result.getResults().get(1).getError().contains("Warfarin (interaction)"));
+        assertTrue(result.getResults().get(3).getError().contains("Lisinopril (interaction)"));
+        assertTrue(result.getResults().get(4).getError().contains("Amoxicillin (duplicate therapy)"));
+        InOrder inOrder = inOrder(patientRepository);
+        inOrder.verify(patientRepository).lockForPrescriptionWrites(1L);
+        inOrder.verify(patientRepository).lockForPrescriptionWrites(2L);
+        verify(prescriptionRepository, times(1)).findActiveMedications(1L, LocalDate.now(), 0L);
+        verify(prescriptionRepository, times(1)).findActiveMedications(2L, LocalDate.now(), 0L);
+    }
+
+    @Test
+    @DisplayName("Should commit each batch chunk separately and fail only the chunk that could not be saved")
+    void testCreateBatch_ChunkFailure() {
+
+        List<PrescriptionRequestDto> dtos = Collections.nCopies(
+                PrescriptionServiceImpl.BATCH_CHUNK_SIZE + 1, validRequestDto);
+        List<Prescription> savedChunk = Collections.nCopies(PrescriptionServiceImpl.BATCH_CHUNK_SIZE, prescription);
+        when(patientRepository.findExistingIds(anyList())).thenReturn(List.of(1L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(prescriptionRepository.saveAll(anyList()))
+                .thenReturn(savedChunk)
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+
+        BatchCreateResponseDto result = prescriptionService.createBatch(dtos);
+
+
+        assertEquals(PrescriptionServiceImpl.BATCH_CHUNK_SIZE, result.getCreated());
+        assertEquals(1, result.getFailed());
+        BatchItemResultDto lastItem = result.getResults().get(PrescriptionServiceImpl.BATCH_CHUNK_SIZE);
+        assertEquals(BatchItemResultDto.Status.FAILED, lastItem.getStatus());
+        assertTrue(lastItem.getError().contains("duplicate key"));
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(eventPublisher, times(1)).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch over the size cap before touching the database")
+    void testCreateBatch_TooLarge() {
+
+        List<PrescriptionRequestDto> dtos = Collections.nCopies(
+                PrescriptionService.MAX_BATCH_ITEMS + 1, validRequestDto);
+
+
+        assertThrows(ValidationException.class, () -> prescriptionService.createBatch(dtos));
+        verifyNoInteractions(patientRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should return a bounded patient page with a cursor for the next page")
+    void testGetByPatientIdPage_HasMore() {
+
+        Prescription prescription2 = Prescription.builder()
+                .id(2L)
+                .patientId(1L)
+                .doctorName("Dr. Sanzhar")
+                .medication("Ibuprofen")
+                .dosage("200mg as needed")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(60))
+                .build();
+
+        when(prescriptionRepository.findPageByPatientId(1L, 0L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(toSnapshot(prescription), toSnapshot(prescription2)));
+
+
+        CursorPageResponseDto<PrescriptionResponseDto> result = prescriptionService.getByPatientId(1L, null, 1);
+
+
+        assertEquals(1, result.getSize());
+        assertTrue(result.isHasMore());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals(1L, PageCursor.decode(result.getNextCursor()).getId());
+    }
+
+    @Test
+    @DisplayName("Should resolve a lookup with one query per kind and report missing ids")
+    void testLookup_ReportsMissing() {
+
+        Prescription prescription2 = Prescription.builder()
+                .id(2L)
+                .patientId(2L)
+                .doctorName("Dr. Sanzhar")
+                .medication("Ibuprofen")
+                .dosage("200mg as needed")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(60))
+                .build();
+        when(prescriptionRepository.findSnapshotsByIdIn(any()))
+                .thenReturn(List.of(toSnapshot(prescription2), toSnapshot(prescription)));
+        when(prescriptionRepository.findByPatientIdIn(any(), anyInt()))
+                .thenReturn(List.of(prescription));
+        when(patientExistenceIndex.contains(3L)).thenReturn(true);
+        when(patientRepository.findExistingIds(List.of(4L))).thenReturn(List.of());
+        LookupRequestDto request = LookupRequestDto.builder()
+                .ids(Arrays.asList(1L, 9L, 2L, 1L))
+                .patientIds(List.of(1L, 3L, 4L))
+                .build();
+
+
+        LookupResponseDto result = prescriptionService.lookup(request);
+
+
+        assertEquals(List.of(1L, 2L), List.copyOf(result.getPrescriptions().keySet()));
+        assertEquals(List.of(9L), result.getMissingIds());
+        assertEquals(1, result.getPatients().get(1L).size());
+        assertTrue(result.getPatients().get(3L).isEmpty());
+        assertEquals(List.of(4L), result.getMissingPatientIds());
+        verify(prescriptionRepository, times(1)).findSnapshotsByIdIn(any());
+        verify(prescriptionRepository, times(1)).findByPatientIdIn(any(), anyInt());
+        verify(prescriptionRepository, never()).findSnapshotById(anyLong());
+        assertTrue(result.getTruncatedPatientIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should cap each patient's lookup results and report the patients that were cut off")
+    void testLookup_TruncatesLongHistories() {
+
+        List<Prescription> history = LongStream.rangeClosed(1, PrescriptionService.MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT + 1)
+                .mapToObj(id -> Prescription.builder()
+                        .id(id)
+                        .patientId(1L)
+                        .doctorName("Dr. Aiym")
+                        .medication("Amoxicillin")
+                        .dosage("500mg twice daily")
+                        .issueDate(LocalDate.now())
+                        .validUntil(LocalDate.now().plusDays(30))
+                        .build())
+                .toList();
+        when(prescriptionRepository.findByPatientIdIn(any(), eq(PrescriptionService.MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT + 1)))
+                .thenReturn(history);
+        LookupRequestDto request = LookupRequestDto.builder()
+                .patientIds(List.of(1L))
+                .build();
+
+
+        LookupResponseDto result = prescriptionService.lookup(request);
+
+
+        assertEquals(PrescriptionService.MAX_LOOKUP_PRESCRIPTIONS_PER_PATIENT, result.getPatients().get(1L).size());
+        assertEquals(List.of(1L), result.getTruncatedPatientIds());
+        assertTrue(result.getMissingPatientIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a lookup without any ids")
+    void testLookup_Empty() {
+
+        assertThrows(ValidationException.class, () -> prescriptionService.lookup(new LookupRequestDto()));
+
+        verifyNoInteractions(prescriptionRepository);
+    }
+
+    @Test
+    @DisplayName("Should return search results in rank order with an offset cursor")
+    void testSearch_KeepsRankOrder() {
+
+        Prescription prescription2 = Prescription.builder()
+                .id(2L)
+                .patientId(1L)
+                .doctorName("Dr. Sanzhar")
+                .medication("Amoxicillin")
+                .dosage("250mg")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(60))
+                .build();
+        when(prescriptionRepository.searchIds("amox", "%amox%", "amox%", 2, 0))
+                .thenReturn(List.of(2L, 1L));
+        when(prescriptionRepository.findSnapshotsByIdIn(List.of(2L)))
+                .thenReturn(List.of(toSnapshot(prescription2)));
+
+
+        CursorPageResponseDto<PrescriptionResponseDto> result = prescriptionService.search(" amox ", null, 1);
+
+
+        assertEquals(1, result.getSize());
+        assertEquals(2L, result.getItems().get(0).getId());
+        assertTrue(result.isHasMore());
+        assertEquals(1L, PageCursor.decodeSearchOffset(result.getNextCursor(), "amox"));
+    }
+
+    @Test
+    @DisplayName("Should reject a search cursor issued for another query or another endpoint")
+    void testSearch_RejectsForeignCursor() {
+
+        String amoxCursor = PageCursor.encodeSearch("amox", 50);
+
+        ValidationException otherQuery = assertThrows(ValidationException.class,
+                () -> prescriptionService.search("ibup", amoxCursor, null));
+        assertThrows(ValidationException.class, () -> prescriptionService.search("amox", PageCursor.encode(50L), null));
+
+        assertTrue(otherQuery.getMessage().contains("different search query"));
+        verifyNoInteractions(prescriptionRepository);
+    }
+
+    @Test
+    @DisplayName("Should continue a search from the offset in its own cursor")
+    void testSearch_ResumesFromCursor() {
+
+        when(prescriptionRepository.searchIds("amox", "%amox%", "amox%", 51, 50))
+                .thenReturn(List.of());
+
+
+        CursorPageResponseDto<PrescriptionResponseDto> result =
+                prescriptionService.search("amox", PageCursor.encodeSearch("amox", 50), null);
+
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject search queries shorter than three characters")
+    void testSearch_Validation() {
+
+        assertThrows(ValidationException.class, () -> prescriptionService.search("am", null, null));
+
+        verifyNoInteractions(prescriptionRepository);
+    }
+
+    @Test
+    @DisplayName("Should escape LIKE wildcards in the search query")
+    void testSearch_EscapesWildcards() {
+
+        when(prescriptionRepository.searchIds("50%_mg", "%50\\%\\_mg%", "50\\%\\_mg%", 51, 0))
+                .thenReturn(List.of());
+
+
+        CursorPageResponseDto<PrescriptionResponseDto> result = prescriptionService.search("50%_mg", null, null);
+
+
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.isHasMore());
+        verify(prescriptionRepository, never()).findSnapshotsByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("Should tag a prescription with its version and expiry state")
+    void testGetVersionTag() {
+
+        prescription.setVersion(3L);
+        when(prescriptionRepository.findSnapshotById(1L)).thenReturn(Optional.of(toSnapshot(prescription)));
+
+
+        String tag = prescriptionService.getVersionTag(1L);
+
+
+        assertEquals("3-active", tag);
+        assertEquals(VersionTags.of(prescriptionService.getById(1L)), tag);
+    }
+
+    @Test
+    @DisplayName("Should compute the patient page tag from versions only, matching the tag of the loaded page")
+    void testGetPatientPageVersionTag_MatchesLoadedPage() {
+
+        prescription.setVersion(0L);
+        Prescription expired = Prescription.builder()
+                .id(2L)
+                .patientId(1L)
+                .doctorName("Dr. Sanzhar")
+                .medication("Ibuprofen")
+                .dosage("200mg as needed")
+                .issueDate(LocalDate.now().minusDays(60))
+                .validUntil(LocalDate.now().minusDays(1))
+                .version(4L)
+                .build();
+        List<Prescription> rows = Arrays.asList(prescription, expired);
+        when(prescriptionRepository.findVersionPageByPatientId(1L, 0L, PageRequest.of(0, 2)))
+                .thenReturn(rows.stream()
+                        .map(p -> new PrescriptionVersion(p.getId(), p.getVersion(), p.getValidUntil()))
+                        .toList());
+        when(prescriptionRepository.findPageByPatientId(1L, 0L, PageRequest.of(0, 2)))
+                .thenReturn(rows.stream().map(this::toSnapshot).toList());
+
+
+        String tag = prescriptionService.getPatientPageVersionTag(1L, null, 1);
+        verify(prescriptionRepository, never()).findPageByPatientId(anyLong(), anyLong(), any());
+
+
+        assertEquals(VersionTags.ofPage(prescriptionService.getByPatientId(1L, null, 1)), tag);
+    }
+
+    @Test
+    @DisplayName("Should continue a date range page after the cursor position")
+    void testGetByDateRangePage_FromCursor() {
+
+        LocalDate startDate = LocalDate.now().minusDays(10);
+        LocalDate endDate = LocalDate.now().plusDays(10);
+        String cursor = PageCursor.encode(LocalDate.now(), 1L);
+        when(prescriptionRepository.findPageByIssueDateBetween(startDate, endDate, LocalDate.now(), 1L, PageRequest.of(0, 51)))
+                .thenReturn(List.of());
+
+
+        CursorPageResponseDto<PrescriptionResponseDto> result = prescriptionService.getByDateRange(startDate, endDate, cursor, null);
+
+
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed page cursor")
+    void testGetByDoctorNamePage_InvalidCursor() {
+
+        ValidationException exception = assertThrows(
+                ValidationException.class,
+                () -> prescriptionService.getByDoctorName("Dr. Aiym", "not-a-cursor", 10)
+        );
+
+        assertTrue(exception.getMessage().contains("cursor"));
+        verify(prescriptionRepository, never()).findPageByDoctorName(any(), anyLong(), any());
+    }
+
+    private static PrescriptionRequestDto batchItem(Long patientId, String medication) {
+        return PrescriptionRequestDto.builder()
+                .patientId(patientId)
+                .doctorName("Dr. Aiym")
+                .medication(medication)
+                .dosage("500mg twice daily")
+                .issueDate(LocalDate.now())
+                .validUntil(LocalDate.now().plusDays(30))
+                .build();
+    }
+
+    private PrescriptionSnapshot toSnapshot(Prescription source) {
+        return PrescriptionSnapshot.builder()
+                .id(source.getId())
+                .patientId(source.getPatientId())
+                .doctorName(source.getDoctorName())
+                .medication(source.getMedication())
+                .dosage(source.getDosage())
+                .issueDate(source.getIssueDate())
+                .validUntil(source.getValidUntil())
+                .version(source.getVersion())
+                .build();
     }
-}
\ No newline at end of file
+}
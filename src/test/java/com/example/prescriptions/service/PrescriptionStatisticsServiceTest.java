@@ -0,0 +1,87 @@
+package com.example.prescriptions.service;
+
+import com.example.prescriptions.dto.MonthlyPrescriptionCount;
+import com.example.prescriptions.dto.PrescriptionCount;
+import com.example.prescriptions.dto.PrescriptionStatisticsDto;
+import com.example.prescriptions.exception.ValidationException;
+import com.example.prescriptions.repository.PrescriptionStatsRepository;
+import com.example.prescriptions.service.impl.PrescriptionStatisticsServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Prescription Statistics Service Tests")
+class PrescriptionStatisticsServiceTest {
+
+    @Mock
+    private PrescriptionStatsRepository statsRepository;
+
+    @InjectMocks
+    private PrescriptionStatisticsServiceImpl statisticsService;
+
+    @Test
+    @DisplayName("Should combine the rollups for the requested months")
+    void getStatistics_Success() {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 3, 1);
+        when(statsRepository.countAll()).thenReturn(10L);
+        when(statsRepository.countValidOn(LocalDate.now())).thenReturn(7L);
+        when(statsRepository.countByDoctor(from, to, PageRequest.of(0, 5)))
+                .thenReturn(List.of(new PrescriptionCount("Dr. Aiym", 6L)));
+        when(statsRepository.countByMedication(from, to, PageRequest.of(0, 5)))
+                .thenReturn(List.of(new PrescriptionCount("Amoxicillin", 4L)));
+        when(statsRepository.countByMonth(from, to)).thenReturn(List.of(
+                new MonthlyPrescriptionCount(LocalDate.of(2026, 1, 1), 3L),
+                new MonthlyPrescriptionCount(LocalDate.of(2026, 2, 1), 0L),
+                new MonthlyPrescriptionCount(LocalDate.of(2026, 3, 1), 2L)));
+
+        PrescriptionStatisticsDto result = statisticsService.getStatistics(YearMonth.of(2026, 1), YearMonth.of(2026, 3), 5);
+
+        assertEquals(10L, result.getTotal());
+        assertEquals(7L, result.getActive());
+        assertEquals(3L, result.getExpired());
+        assertEquals("Dr. Aiym", result.getByDoctor().get(0).getName());
+        assertEquals("Amoxicillin", result.getByMedication().get(0).getName());
+        assertEquals(List.of(new PrescriptionCount("2026-01", 3L), new PrescriptionCount("2026-03", 2L)),
+                result.getByMonth());
+    }
+
+    @Test
+    @DisplayName("Should default to the last twelve months")
+    void getStatistics_DefaultRange() {
+        YearMonth current = YearMonth.now();
+
+        PrescriptionStatisticsDto result = statisticsService.getStatistics(null, null, null);
+
+        assertEquals(current.minusMonths(11), result.getFrom());
+        assertEquals(current, result.getTo());
+        verify(statsRepository).countByMonth(current.minusMonths(11).atDay(1), current.atDay(1));
+        verify(statsRepository).countByDoctor(any(), any(), eq(PageRequest.of(0, 20)));
+    }
+
+    @Test
+    @DisplayName("Should reject inverted or oversized month ranges and invalid limits")
+    void getStatistics_InvalidArguments() {
+        assertThrows(ValidationException.class,
+                () -> statisticsService.getStatistics(YearMonth.of(2026, 3), YearMonth.of(2026, 1), null));
+        assertThrows(ValidationException.class,
+                () -> statisticsService.getStatistics(YearMonth.of(2016, 1), YearMonth.of(2026, 1), null));
+        assertThrows(ValidationException.class,
+                () -> statisticsService.getStatistics(null, null, 0));
+        verifyNoInteractions(statsRepository);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.prescriptions.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Interaction Matrix Tests")
+class InteractionMatrixTest {
+
+    private static final String INTERACTIONS = """
+            # comment
+            Warfarin,Aspirin
+            Ibuprofen , Lisinopril
+            """;
+
+    @Test
+    @DisplayName("Should report interactions in both directions, case-insensitively")
+    void conflicts_Interaction() {
+        InteractionMatrix matrix = matrix(INTERACTIONS);
+
+        assertEquals(Map.of("aspirin", InteractionMatrix.INTERACTION),
+                matrix.conflicts("WARFARIN", List.of("Amoxicillin", "aspirin")));
+        assertEquals(Map.of("Ibuprofen", InteractionMatrix.INTERACTION),
+                matrix.conflicts("Lisinopril", List.of("Ibuprofen")));
+        assertEquals(4, matrix.size());
+    }
+
+    @Test
+    @DisplayName("Should report the same medication as duplicate therapy, even when it has no interactions")
+    void conflicts_DuplicateTherapy() {
+        InteractionMatrix matrix = matrix(INTERACTIONS);
+
+        assertEquals(Map.of("Amoxicillin", InteractionMatrix.DUPLICATE_THERAPY),
+                matrix.conflicts("amoxicillin ", List.of("Amoxicillin")));
+        assertTrue(matrix.conflicts("Warfarin", List.of("Ibuprofen", "Metformin")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed interaction files")
+    void load_Malformed() {
+        assertThrows(IllegalStateException.class, () -> matrix("Warfarin\n"));
+    }
+
+    @Test
+    @DisplayName("Should swap in a changed file and keep the previous matrix when the new one is invalid")
+    void reloadIfChanged(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("interactions.csv");
+        Files.writeString(file, INTERACTIONS, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(60)));
+        InteractionMatrix matrix = new InteractionMatrix(new FileSystemResource(file), new SimpleMeterRegistry());
+
+        Files.writeString(file, "Metformin,Contrast dye\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(30)));
+        matrix.reloadIfChanged();
+
+        assertFalse(matrix.conflicts("Metformin", List.of("Contrast dye")).isEmpty());
+        assertTrue(matrix.conflicts("Warfarin", List.of("Aspirin")).isEmpty());
+
+        Files.writeString(file, "broken\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        matrix.reloadIfChanged();
+
+        assertFalse(matrix.conflicts("Metformin", List.of("Contrast dye")).isEmpty());
+    }
+
+    private static InteractionMatrix matrix(String interactions) {
+        return new InteractionMatrix(new ByteArrayResource(interactions.getBytes(StandardCharsets.UTF_8)),
+                new SimpleMeterRegistry());
+    }
+}
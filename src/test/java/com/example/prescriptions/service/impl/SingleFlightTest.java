@@ -0,0 +1,143 @@
+package com.example.prescriptions.service.impl;
+
+import com.example.prescriptions.exception.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Single Flight Tests")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<Long, String> flight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run one load for concurrent callers of the same key and share its result")
+    void execute_SharesInFlightLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> results = submitAll(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return "prescription-1";
+        });
+        awaitShared(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("prescription-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.executedCount());
+        assertEquals(CALLERS - 1, flight.sharedCount());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the loader's exception to every waiting caller")
+    void execute_SharesFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submitAll(() -> {
+            await(release);
+            throw new NotFoundException("Prescription", 1L);
+        });
+        awaitShared(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Exception ex = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NotFoundException.class, ex.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Should load again once the previous call has completed")
+    void execute_DoesNotCacheCompletedCalls() {
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute(1L, () -> "v" + loads.incrementAndGet());
+        String second = flight.execute(1L, () -> "v" + loads.incrementAndGet());
+
+        assertEquals("v2", second);
+        assertEquals(2, flight.executedCount());
+        assertEquals(0, flight.sharedCount());
+    }
+
+    @Test
+    @DisplayName("Should not join a load that started before a write landed")
+    void execute_DoesNotJoinLoadStartedBeforeInvalidate() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> beforeWrite = executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            return "before-write";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        flight.invalidate();
+        CountDownLatch afterStarted = new CountDownLatch(1);
+        CountDownLatch afterRelease = new CountDownLatch(1);
+        Future<String> afterWrite = executor.submit(() -> flight.execute(1L, () -> {
+            afterStarted.countDown();
+            await(afterRelease);
+            return "after-write";
+        }));
+        assertTrue(afterStarted.await(5, TimeUnit.SECONDS));
+        Future<String> joined = executor.submit(() -> flight.execute(1L, () -> "unexpected"));
+        awaitShared(1);
+        release.countDown();
+        afterRelease.countDown();
+
+        assertEquals("before-write", beforeWrite.get(5, TimeUnit.SECONDS));
+        assertEquals("after-write", afterWrite.get(5, TimeUnit.SECONDS));
+        assertEquals("after-write", joined.get(5, TimeUnit.SECONDS));
+        assertEquals(2, flight.executedCount());
+        assertEquals(1, flight.sharedCount());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    private List<Future<String>> submitAll(Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute(1L, loader)));
+        }
+        return results;
+    }
+
+    private void awaitShared(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.sharedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}